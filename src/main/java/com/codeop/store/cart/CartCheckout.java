@@ -0,0 +1,113 @@
+package com.codeop.store.cart;
+
+import com.codeop.store.dto.CheckoutRequest;
+import com.codeop.store.dto.OrderItemResponse;
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.inventory.StockReservations;
+import com.codeop.store.model.Cart;
+import com.codeop.store.model.CartItem;
+import com.codeop.store.model.CustomerOrder;
+import com.codeop.store.model.Product;
+import com.codeop.store.pricing.Money;
+import com.codeop.store.pricing.OrderPricing;
+import com.codeop.store.repository.CartRepository;
+import com.codeop.store.repository.OrderRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Turns a cart into an order in one transaction: one fetch-joined read of the cart, its items and products, one
+ * batched insert for the order lines, two bulk deletes for the cart, and the stock reservation last so product
+ * locks are held only until commit. Lines are priced at the products' current prices, like {@code POST /api/orders}.
+ */
+@Component
+public class CartCheckout {
+
+    private static final String INSERT_ORDER_ITEM =
+            "insert into order_items (order_id, product_id, quantity, unit_price) values (?, ?, ?, ?)";
+
+    private final CartStore cartStore;
+    private final CartRepository cartRepository;
+    private final OrderRepository orderRepository;
+    private final StockReservations stockReservations;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartCheckout(CartStore cartStore,
+                        CartRepository cartRepository,
+                        OrderRepository orderRepository,
+                        StockReservations stockReservations,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate) {
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.orderRepository = orderRepository;
+        this.stockReservations = stockReservations;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public OrderResponse checkout(Long cartId, CheckoutRequest request) {
+        return cartStore.consume(cartId, () -> transactionTemplate.execute(status -> placeOrder(cartId, request)));
+    }
+
+    private OrderResponse placeOrder(Long cartId, CheckoutRequest request) {
+        Cart cart = cartRepository.findWithItems(cartId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+        if (cart.getItems().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+        }
+
+        CustomerOrder order = new CustomerOrder();
+        order.setCustomerName(request.getCustomerName());
+        order.setCustomerEmail(request.getCustomerEmail());
+        if (cart.getCurrency() != null) {
+            order.setCurrency(cart.getCurrency());
+        }
+        OrderPricing pricing = new OrderPricing(order.getCurrency());
+
+        List<Object[]> rows = new ArrayList<>(cart.getItems().size());
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<OrderItemResponse> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            Product product = item.getProduct();
+            long unitPrice = Money.toMinor(product.getPrice());
+            long lineTotal = pricing.addLine(product.getCurrency(), unitPrice, item.getQuantity());
+            // The order id is filled in once the order row exists.
+            rows.add(new Object[]{null, product.getId(), item.getQuantity(), Money.toDecimal(unitPrice)});
+            quantities.put(product.getId(), item.getQuantity());
+
+            OrderItemResponse response = new OrderItemResponse();
+            response.setProductId(product.getId());
+            response.setProductName(product.getName());
+            response.setQuantity(item.getQuantity());
+            response.setUnitPrice(Money.toDecimal(unitPrice));
+            response.setLineTotal(Money.toDecimal(lineTotal));
+            items.add(response);
+        }
+        order.setTotalAmount(pricing.total());
+        CustomerOrder saved = orderRepository.saveAndFlush(order);
+
+        rows.forEach(row -> row[0] = saved.getId());
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, rows);
+
+        cartRepository.deleteItemsByCartIds(List.of(cartId));
+        if (cartRepository.deleteByIdAndVersion(cartId, cart.getVersion()) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Cart changed during checkout");
+        }
+        saved.setReservedUntil(stockReservations.reserve(quantities));
+
+        OrderResponse response = new OrderResponse(saved.getId(), saved.getCustomerName(), saved.getCustomerEmail(),
+                saved.getStatus(), saved.getTotalAmount(), saved.getCurrency(), saved.getCreatedAt(),
+                saved.getUpdatedAt());
+        response.setItems(items);
+        return response;
+    }
+}
@@ -0,0 +1,103 @@
+package com.codeop.store.cart;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of cart changes that have not reached the database yet. A flush first moves the active file
+ * aside, so every record written after that point lands in a fresh file and survives the flush.
+ */
+final class CartJournal {
+
+    private final Path active;
+    private final Path flushing;
+    private BufferedWriter writer;
+
+    CartJournal(Path path) {
+        this.active = path.toAbsolutePath();
+        this.flushing = active.resolveSibling(active.getFileName() + ".flushing");
+    }
+
+    synchronized void append(List<String> records) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(active.getParent());
+                writer = Files.newBufferedWriter(active, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (String record : records) {
+                writer.write(record);
+                writer.newLine();
+            }
+            // Hands the bytes to the OS: enough to survive a process crash, not a power loss.
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    synchronized void rotate() {
+        try {
+            closeWriter();
+            if (!Files.exists(active)) {
+                return;
+            }
+            if (Files.exists(flushing)) {
+                // The previous flush failed; keep its records and queue the new ones behind them.
+                Files.write(flushing, Files.readAllBytes(active), StandardOpenOption.APPEND);
+                Files.delete(active);
+            } else {
+                Files.move(active, flushing, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    synchronized void complete() {
+        try {
+            Files.deleteIfExists(flushing);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    synchronized List<String> pending() {
+        try {
+            List<String> records = new ArrayList<>();
+            for (Path path : List.of(flushing, active)) {
+                if (Files.exists(path)) {
+                    records.addAll(Files.readAllLines(path, StandardCharsets.UTF_8));
+                }
+            }
+            return records;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    synchronized void clear() {
+        try {
+            closeWriter();
+            Files.deleteIfExists(flushing);
+            Files.deleteIfExists(active);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
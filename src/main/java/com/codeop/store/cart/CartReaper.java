@@ -0,0 +1,77 @@
+package com.codeop.store.cart;
+
+import com.codeop.store.repository.CartRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes carts nobody has touched for {@code app.cart.reaper.ttl}. Work is done in small transactions of bulk
+ * deletes with a pause in between, so a large backlog drains slowly instead of competing with live traffic.
+ */
+@Component
+public class CartReaper {
+
+    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Duration pause;
+    private volatile ReaperStats stats = new ReaperStats(null, 0, 0, 0);
+
+    public CartReaper(CartRepository cartRepository,
+                      CartStore cartStore,
+                      TransactionTemplate transactionTemplate,
+                      @Value("${app.cart.reaper.ttl}") Duration ttl,
+                      @Value("${app.cart.reaper.batch-size}") int batchSize,
+                      @Value("${app.cart.reaper.pause}") Duration pause) {
+        this.cartRepository = cartRepository;
+        this.cartStore = cartStore;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.reaper.interval}", initialDelayString = "${app.cart.reaper.interval}")
+    public void reap() throws InterruptedException {
+        Instant cutoff = Instant.now().minus(ttl);
+        long carts = 0;
+        long items = 0;
+        while (true) {
+            Batch batch = transactionTemplate.execute(status -> deleteBatch(cutoff));
+            carts += batch.cartIds().size();
+            items += batch.items();
+            // A batch the cart store held back entirely would come back unchanged, so it ends the run too.
+            if (batch.locked() < batchSize || batch.cartIds().isEmpty()) {
+                break;
+            }
+            Thread.sleep(pause);
+        }
+        stats = new ReaperStats(Instant.now(), carts, items, stats.totalRemovedCarts() + carts);
+    }
+
+    private Batch deleteBatch(Instant cutoff) {
+        List<Long> locked = cartRepository.lockIdleIds(cutoff, batchSize);
+        // The database's updated_at lags behind carts kept in memory, so the store has the last word.
+        List<Long> cartIds = locked.isEmpty() ? locked : cartStore.claimForRemoval(locked, cutoff);
+        if (cartIds.isEmpty()) {
+            return new Batch(locked.size(), cartIds, 0);
+        }
+        int items = cartRepository.deleteItemsByCartIds(cartIds);
+        cartRepository.deleteByIds(cartIds);
+        return new Batch(locked.size(), cartIds, items);
+    }
+
+    public ReaperStats stats() {
+        return stats;
+    }
+
+    private record Batch(int locked, List<Long> cartIds, int items) {
+    }
+}
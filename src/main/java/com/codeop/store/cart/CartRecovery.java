@@ -0,0 +1,12 @@
+package com.codeop.store.cart;
+
+/**
+ * What the write-behind cart store does about changes that were acknowledged but not yet flushed when the
+ * process dies.
+ */
+public enum CartRecovery {
+    /** Unflushed quantity changes and removals are lost; the database copy is the recovery point. */
+    NONE,
+    /** Changes are appended to a local journal first and replayed into the database on the next start. */
+    JOURNAL
+}
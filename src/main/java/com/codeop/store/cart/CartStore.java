@@ -0,0 +1,53 @@
+package com.codeop.store.cart;
+
+import com.codeop.store.dto.CartBadgeResponse;
+import com.codeop.store.model.Cart;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Where carts live between requests. Callers never hold on to a {@link Cart}: they pass a callback that
+ * runs while the store guarantees exclusive (for updates) access to the aggregate.
+ */
+public interface CartStore {
+
+    Cart create();
+
+    <T> T read(Long cartId, Function<Cart, T> reader);
+
+    /**
+     * Applies {@code mutation} and then renders the result with {@code view}, which sees the changes with any
+     * new items already assigned their ids.
+     */
+    <T> T update(Long cartId, Consumer<Cart> mutation, Function<Cart, T> view);
+
+    default void update(Long cartId, Consumer<Cart> mutation) {
+        update(cartId, mutation, cart -> null);
+    }
+
+    /**
+     * Returns the cart's count and total without loading its items.
+     */
+    CartBadgeResponse badge(Long cartId);
+
+    /**
+     * Runs {@code action} once every change to the cart is durable, with no other writer able to touch it, and
+     * then forgets the cart. For flows like checkout that read the cart from the database and delete it.
+     */
+    <T> T consume(Long cartId, Supplier<T> action);
+
+    /**
+     * Forgets any in-memory state for the cart, e.g. after it has been checked out or deleted.
+     */
+    void evict(Long cartId);
+
+    /**
+     * Called in the transaction that is about to delete {@code cartIds}, which the database shows as idle since
+     * {@code cutoff}. Returns the ones that may be deleted, leaving out carts the store knows to be newer or busy;
+     * once the transaction commits, the returned carts are forgotten.
+     */
+    List<Long> claimForRemoval(List<Long> cartIds, Instant cutoff);
+}
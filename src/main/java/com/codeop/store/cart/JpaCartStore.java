@@ -0,0 +1,78 @@
+package com.codeop.store.cart;
+
+import com.codeop.store.dto.CartBadgeResponse;
+import com.codeop.store.model.Cart;
+import com.codeop.store.repository.CartRepository;
+import com.codeop.store.retry.OptimisticRetry;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Reads and writes every cart operation straight through to Postgres, with optimistic retries on conflict.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cart", name = "store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final OptimisticRetry optimisticRetry;
+
+    public JpaCartStore(CartRepository cartRepository, OptimisticRetry optimisticRetry) {
+        this.cartRepository = cartRepository;
+        this.optimisticRetry = optimisticRetry;
+    }
+
+    @Override
+    public Cart create() {
+        return cartRepository.save(new Cart());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> T read(Long cartId, Function<Cart, T> reader) {
+        return reader.apply(load(cartId));
+    }
+
+    @Override
+    public <T> T update(Long cartId, Consumer<Cart> mutation, Function<Cart, T> view) {
+        return optimisticRetry.execute("cart.update", () -> {
+            Cart cart = load(cartId);
+            mutation.accept(cart);
+            return view.apply(cartRepository.save(cart));
+        });
+    }
+
+    @Override
+    public CartBadgeResponse badge(Long cartId) {
+        return cartRepository.findBadge(cartId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+    }
+
+    @Override
+    public <T> T consume(Long cartId, Supplier<T> action) {
+        return action.get();
+    }
+
+    @Override
+    public void evict(Long cartId) {
+    }
+
+    // Edits lock the cart row, so the reaper's skip-locked select has already left busy carts out.
+    @Override
+    public List<Long> claimForRemoval(List<Long> cartIds, Instant cutoff) {
+        return cartIds;
+    }
+
+    private Cart load(Long cartId) {
+        return cartRepository.findWithItems(cartId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+    }
+}
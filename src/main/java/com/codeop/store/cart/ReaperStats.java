@@ -0,0 +1,6 @@
+package com.codeop.store.cart;
+
+import java.time.Instant;
+
+public record ReaperStats(Instant lastRunAt, long lastRemovedCarts, long lastRemovedItems, long totalRemovedCarts) {
+}
@@ -0,0 +1,477 @@
+package com.codeop.store.cart;
+
+import com.codeop.store.config.LifecyclePhases;
+import com.codeop.store.dto.CartBadgeResponse;
+import com.codeop.store.model.Cart;
+import com.codeop.store.model.CartItem;
+import com.codeop.store.pricing.Money;
+import com.codeop.store.repository.CartRepository;
+import jakarta.persistence.EntityManager;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Keeps active carts in memory and writes changes back in batches. Creating a cart and adding a new line write
+ * through, because callers need the generated ids; quantity changes, removals and the cart row itself are
+ * coalesced per cart and flushed with JDBC batches on an interval, before {@link #consume} and on shutdown.
+ * Each cart is guarded by its own lock, so different carts never contend.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cart", name = "store", havingValue = "memory")
+public class WriteBehindCartStore implements CartStore, SmartLifecycle {
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?) RETURNING id";
+    private static final String UPDATE_QUANTITY = "UPDATE cart_items SET quantity = ? WHERE id = ?";
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE id = ?";
+    private static final String TOUCH_CART = """
+            UPDATE carts SET updated_at = ?, item_count = ?, subtotal = ?, currency = ?, version = version + 1
+            WHERE id = ?""";
+
+    private final CartRepository cartRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration idleTimeout;
+    private final CartJournal journal;
+
+    private final Map<Long, Entry> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                EntityManager entityManager,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.cart.idle-timeout}") Duration idleTimeout,
+                                @Value("${app.cart.recovery}") CartRecovery recovery,
+                                @Value("${app.cart.journal-path}") Path journalPath) {
+        this.cartRepository = cartRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idleTimeout = idleTimeout;
+        this.journal = recovery == CartRecovery.JOURNAL ? new CartJournal(journalPath) : null;
+    }
+
+    @Override
+    public Cart create() {
+        Cart cart = cartRepository.save(new Cart());
+        entityManager.detach(cart);
+        carts.put(cart.getId(), new Entry(cart));
+        return cart;
+    }
+
+    @Override
+    public <T> T read(Long cartId, Function<Cart, T> reader) {
+        while (true) {
+            Entry entry = entry(cartId);
+            entry.lock.lock();
+            try {
+                if (!entry.evicted) {
+                    entry.lastAccess = System.nanoTime();
+                    return reader.apply(entry.cart);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public <T> T update(Long cartId, Consumer<Cart> mutation, Function<Cart, T> view) {
+        while (true) {
+            Entry entry = entry(cartId);
+            entry.lock.lock();
+            try {
+                if (!entry.evicted) {
+                    entry.lastAccess = System.nanoTime();
+                    apply(entry, mutation);
+                    return view.apply(entry.cart);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public CartBadgeResponse badge(Long cartId) {
+        // Carts that are not in memory are answered from their row rather than loaded with all their items.
+        Entry entry = carts.get(cartId);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                if (!entry.evicted) {
+                    Cart cart = entry.cart;
+                    return new CartBadgeResponse(cart.getId(), cart.getItemCount(), cart.getSubtotal(),
+                            cart.getCurrency() == null ? "USD" : cart.getCurrency());
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return cartRepository.findBadge(cartId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+    }
+
+    @Override
+    public <T> T consume(Long cartId, Supplier<T> action) {
+        Entry entry = carts.get(cartId);
+        if (entry == null) {
+            return action.get();
+        }
+        entry.lock.lock();
+        try {
+            if (entry.evicted) {
+                return action.get();
+            }
+            // Once written the changes are durable, so a failing action leaves nothing to put back.
+            write(List.of(entry.drain(cartId)));
+            T result = action.get();
+            entry.evicted = true;
+            carts.remove(cartId, entry);
+            dirty.remove(cartId);
+            return result;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    @Override
+    public void evict(Long cartId) {
+        Entry entry = carts.remove(cartId);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                entry.evicted = true;
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        dirty.remove(cartId);
+    }
+
+    /**
+     * Claims the carts that may go. Each claimed cart's lock is held, and a placeholder entry keeps carts that are
+     * not in memory from being loaded, until the deleting transaction completes; requests for them then find them
+     * gone. A cart changed in memory since {@code cutoff}, or in use right now, is left out.
+     */
+    @Override
+    public List<Long> claimForRemoval(List<Long> cartIds, Instant cutoff) {
+        List<Long> claimed = new ArrayList<>(cartIds.size());
+        List<Entry> held = new ArrayList<>(cartIds.size());
+        for (Long cartId : cartIds) {
+            Entry placeholder = new Entry(null);
+            placeholder.lock.lock();
+            Entry entry = carts.putIfAbsent(cartId, placeholder);
+            if (entry == null) {
+                entry = placeholder;
+            } else {
+                placeholder.lock.unlock();
+                // Never waits: the holder may itself be waiting on the rows this transaction has locked.
+                if (!entry.lock.tryLock()) {
+                    continue;
+                }
+                if (!entry.evicted && !entry.cart.getUpdatedAt().isBefore(cutoff)) {
+                    entry.lock.unlock();
+                    continue;
+                }
+            }
+            claimed.add(cartId);
+            held.add(entry);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = 0; i < held.size(); i++) {
+                    Entry entry = held.get(i);
+                    if (status == STATUS_COMMITTED || entry.cart == null) {
+                        entry.evicted = true;
+                        carts.remove(claimed.get(i), entry);
+                        dirty.remove(claimed.get(i));
+                    }
+                    entry.lock.unlock();
+                }
+            }
+        });
+        return claimed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval}", initialDelayString = "${app.cart.flush-interval}")
+    public void flushDirty() {
+        // Rotate before draining: anything journaled from here on belongs to the next flush.
+        if (journal != null) {
+            journal.rotate();
+        }
+        List<Pending> batch = new ArrayList<>();
+        for (Long cartId : List.copyOf(dirty)) {
+            dirty.remove(cartId);
+            Entry entry = carts.get(cartId);
+            if (entry != null) {
+                entry.lock.lock();
+                try {
+                    batch.add(entry.drain(cartId));
+                } finally {
+                    entry.lock.unlock();
+                }
+            }
+        }
+        write(batch);
+        if (journal != null) {
+            journal.complete();
+        }
+        evictIdle();
+    }
+
+    @Override
+    public void start() {
+        if (journal != null) {
+            replay(journal.pending());
+            journal.clear();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        flushDirty();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return LifecyclePhases.BEFORE_WEB_SERVER;
+    }
+
+    private Entry entry(Long cartId) {
+        Entry entry = carts.get(cartId);
+        if (entry != null) {
+            return entry;
+        }
+        // Loaded outside the map so a slow read never blocks other carts; a concurrent loader may win the race.
+        Cart cart = transactionTemplate.execute(status -> cartRepository.findWithItems(cartId)
+                .map(found -> {
+                    entityManager.detach(found);
+                    return found;
+                })
+                .orElse(null));
+        if (cart == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found");
+        }
+        Entry loaded = new Entry(cart);
+        Entry existing = carts.putIfAbsent(cartId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void apply(Entry entry, Consumer<Cart> mutation) {
+        Cart cart = entry.cart;
+        List<CartItem> itemsBefore = List.copyOf(cart.getItems());
+        Map<Long, Integer> quantitiesBefore = new HashMap<>();
+        itemsBefore.forEach(item -> quantitiesBefore.put(item.getId(), item.getQuantity()));
+        Instant updatedBefore = cart.getUpdatedAt();
+        try {
+            mutation.accept(cart);
+            // One transaction for all new lines: if any insert fails, none of them is left behind in the database.
+            transactionTemplate.executeWithoutResult(status -> {
+                for (CartItem item : cart.getItems()) {
+                    if (item.getId() == null) {
+                        item.setId(jdbcTemplate.queryForObject(INSERT_ITEM, Long.class, cart.getId(),
+                                item.getProductId(), item.getQuantity(), Money.toDecimal(item.getUnitPrice())));
+                    }
+                }
+            });
+            cart.getItems().stream()
+                    .filter(item -> !quantitiesBefore.containsKey(item.getId()))
+                    .forEach(item -> quantitiesBefore.put(item.getId(), item.getQuantity()));
+        } catch (RuntimeException ex) {
+            restore(cart, itemsBefore, quantitiesBefore);
+            throw ex;
+        }
+
+        List<String> records = new ArrayList<>();
+        Set<Long> gone = new HashSet<>(quantitiesBefore.keySet());
+        for (CartItem item : cart.getItems()) {
+            gone.remove(item.getId());
+            if (!Objects.equals(quantitiesBefore.get(item.getId()), item.getQuantity())) {
+                entry.quantities.put(item.getId(), item.getQuantity());
+                records.add("Q " + cart.getId() + " " + item.getId() + " " + item.getQuantity());
+            }
+        }
+        for (Long itemId : gone) {
+            entry.quantities.remove(itemId);
+            entry.removed.add(itemId);
+            records.add("R " + cart.getId() + " " + itemId);
+        }
+        if (!Objects.equals(updatedBefore, cart.getUpdatedAt())) {
+            entry.touched = new Touch(cart.getUpdatedAt(), cart.getItemCount(), cart.getSubtotal(), cart.getCurrency());
+            records.add("T " + cart.getId() + " " + cart.getUpdatedAt() + " " + cart.getItemCount() + " "
+                    + cart.getSubtotal() + " " + cart.getCurrency());
+        }
+        if (!records.isEmpty()) {
+            if (journal != null) {
+                journal.append(records);
+            }
+            dirty.add(cart.getId());
+        }
+    }
+
+    private void restore(Cart cart, List<CartItem> itemsBefore, Map<Long, Integer> quantitiesBefore) {
+        for (CartItem item : List.copyOf(cart.getItems())) {
+            if (!itemsBefore.contains(item)) {
+                cart.removeItem(item);
+            }
+        }
+        for (CartItem item : itemsBefore) {
+            if (cart.findItemByProductId(item.getProductId()).orElse(null) != item) {
+                cart.addItem(item);
+            }
+            cart.changeQuantity(item, quantitiesBefore.get(item.getId()));
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Object[]> quantities = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>();
+        for (Pending pending : batch) {
+            pending.quantities().forEach((itemId, quantity) -> quantities.add(new Object[]{quantity, itemId}));
+            pending.removed().forEach(itemId -> deletes.add(new Object[]{itemId}));
+            Touch touch = pending.touched();
+            if (touch != null) {
+                touches.add(new Object[]{Timestamp.from(touch.updatedAt()), touch.itemCount(), Money.toDecimal(touch.subtotal()),
+                        touch.currency(), pending.cartId()});
+            }
+        }
+        if (quantities.isEmpty() && deletes.isEmpty() && touches.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPDATE_QUANTITY, quantities);
+                jdbcTemplate.batchUpdate(DELETE_ITEM, deletes);
+                jdbcTemplate.batchUpdate(TOUCH_CART, touches);
+            });
+        } catch (RuntimeException ex) {
+            batch.forEach(this::requeue);
+            throw ex;
+        }
+    }
+
+    private void requeue(Pending pending) {
+        Entry entry = carts.get(pending.cartId());
+        if (entry == null) {
+            return;
+        }
+        entry.lock.lock();
+        try {
+            pending.quantities().forEach(entry.quantities::putIfAbsent);
+            pending.removed().forEach(itemId -> {
+                entry.quantities.remove(itemId);
+                entry.removed.add(itemId);
+            });
+            if (entry.touched == null) {
+                entry.touched = pending.touched();
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+        dirty.add(pending.cartId());
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        carts.forEach((cartId, entry) -> {
+            entry.lock.lock();
+            try {
+                if (entry.lastAccess - cutoff < 0 && entry.isClean() && !dirty.contains(cartId)) {
+                    entry.evicted = true;
+                    carts.remove(cartId, entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        });
+    }
+
+    private void replay(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String record : records) {
+                String[] fields = record.split(" ");
+                switch (fields[0]) {
+                    case "Q" -> jdbcTemplate.update(UPDATE_QUANTITY, Integer.valueOf(fields[3]), Long.valueOf(fields[2]));
+                    case "R" -> jdbcTemplate.update(DELETE_ITEM, Long.valueOf(fields[2]));
+                    case "T" -> jdbcTemplate.update(TOUCH_CART, Timestamp.from(Instant.parse(fields[2])),
+                            Integer.valueOf(fields[3]), Money.toDecimal(Long.parseLong(fields[4])),
+                            "null".equals(fields[5]) ? null : fields[5], Long.valueOf(fields[1]));
+                    default -> throw new IllegalStateException("Unknown cart journal record: " + record);
+                }
+            }
+        });
+    }
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Cart cart;
+        private final Map<Long, Integer> quantities = new HashMap<>();
+        private final Set<Long> removed = new HashSet<>();
+        private Touch touched;
+        private long lastAccess = System.nanoTime();
+        private boolean evicted;
+
+        private Entry(Cart cart) {
+            this.cart = cart;
+        }
+
+        private boolean isClean() {
+            return quantities.isEmpty() && removed.isEmpty() && touched == null;
+        }
+
+        private Pending drain(Long cartId) {
+            Pending pending = new Pending(cartId, Map.copyOf(quantities), Set.copyOf(removed), touched);
+            quantities.clear();
+            removed.clear();
+            touched = null;
+            return pending;
+        }
+    }
+
+    private record Pending(Long cartId, Map<Long, Integer> quantities, Set<Long> removed, Touch touched) {
+    }
+
+    private record Touch(Instant updatedAt, int itemCount, long subtotal, String currency) {
+    }
+}
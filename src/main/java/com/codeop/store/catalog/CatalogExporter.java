@@ -0,0 +1,51 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.dto.ProductResponse;
+import com.codeop.store.repository.ProductRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams the catalog as newline-delimited JSON straight from a database cursor. Rows are read as
+ * projections, not entities, so nothing piles up in the persistence context and heap use does not grow
+ * with catalog size.
+ */
+@Component
+public class CatalogExporter {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ProductRepository productRepository;
+    private final ObjectWriter writer;
+
+    public CatalogExporter(ProductRepository productRepository, JsonMapper jsonMapper) {
+        this.productRepository = productRepository;
+        this.writer = jsonMapper.writerFor(ProductResponse.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long writeNdjson(OutputStream out) {
+        long written = 0;
+        try (Stream<ProductResponse> products = productRepository.streamResponses()) {
+            Iterator<ProductResponse> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return written;
+    }
+}
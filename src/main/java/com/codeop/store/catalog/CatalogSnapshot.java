@@ -0,0 +1,149 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.dto.ProductResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable view of the active catalog, ordered by (createdAt, id) like the keyset-paged listing. A new
+ * snapshot is built for every change and never mutated afterwards, so readers share it without locking.
+ */
+public final class CatalogSnapshot {
+
+    public static final Comparator<ProductResponse> ORDER = Comparator.comparing(ProductResponse::getCreatedAt)
+            .thenComparing(ProductResponse::getId);
+
+    private final String version;
+    private final CatalogVersion source;
+    private final List<ProductResponse> products;
+    private final Map<Long, ProductResponse> byId;
+    private final Instant lastUpdatedAt;
+
+    CatalogSnapshot(String version, CatalogVersion source, List<ProductResponse> sortedProducts) {
+        this.version = version;
+        this.source = source;
+        this.products = Collections.unmodifiableList(sortedProducts);
+        Map<Long, ProductResponse> index = HashMap.newHashMap(sortedProducts.size());
+        Instant latest = null;
+        for (ProductResponse product : sortedProducts) {
+            index.put(product.getId(), product);
+            if (latest == null || product.getUpdatedAt().isAfter(latest)) {
+                latest = product.getUpdatedAt();
+            }
+        }
+        this.byId = Collections.unmodifiableMap(index);
+        this.lastUpdatedAt = latest;
+    }
+
+    private CatalogSnapshot(String version, CatalogVersion source, List<ProductResponse> sortedProducts,
+                            Map<Long, ProductResponse> byId, Instant lastUpdatedAt) {
+        this.version = version;
+        this.source = source;
+        this.products = Collections.unmodifiableList(sortedProducts);
+        this.byId = Collections.unmodifiableMap(byId);
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    CatalogVersion source() {
+        return source;
+    }
+
+    public Instant lastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public Optional<ProductResponse> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Map<Long, ProductResponse> findAll(List<Long> ids) {
+        Map<Long, ProductResponse> found = HashMap.newHashMap(ids.size());
+        for (Long id : ids) {
+            ProductResponse product = byId.get(id);
+            if (product != null) {
+                found.put(id, product);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns up to {@code limit} products following the (createdAt, id) key, or from the start when
+     * {@code createdAt} is null. The result is a view over the snapshot, not a copy.
+     */
+    public List<ProductResponse> pageAfter(Instant createdAt, Long id, int limit) {
+        int from = 0;
+        if (createdAt != null) {
+            int low = 0;
+            int high = products.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                ProductResponse product = products.get(mid);
+                int cmp = product.getCreatedAt().compareTo(createdAt);
+                if (cmp < 0 || (cmp == 0 && product.getId() <= id)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        return products.subList(from, Math.min(products.size(), from + limit));
+    }
+
+    /**
+     * Returns a copy in which the products in {@code productIds} are dropped and {@code replacements} (each one
+     * of those ids) are merged back in order. {@code nextSource} is the table version the copy corresponds to.
+     */
+    CatalogSnapshot with(String nextVersion, CatalogVersion nextSource, Set<Long> productIds,
+                         List<ProductResponse> replacements) {
+        List<ProductResponse> incoming = new ArrayList<>(replacements);
+        incoming.sort(ORDER);
+        List<ProductResponse> next = new ArrayList<>(products.size() + incoming.size());
+        int pending = 0;
+        for (ProductResponse product : products) {
+            if (productIds.contains(product.getId())) {
+                continue;
+            }
+            while (pending < incoming.size() && ORDER.compare(incoming.get(pending), product) < 0) {
+                next.add(incoming.get(pending++));
+            }
+            next.add(product);
+        }
+        next.addAll(incoming.subList(pending, incoming.size()));
+        return new CatalogSnapshot(nextVersion, nextSource, next);
+    }
+
+    /**
+     * Returns a copy in which the entries for {@code replacements} are swapped in place, without re-sorting. For
+     * changes that keep a product's position, such as stock moves; products not in this snapshot are ignored.
+     */
+    CatalogSnapshot withReplaced(String nextVersion, CatalogVersion nextSource, List<ProductResponse> replacements) {
+        List<ProductResponse> next = new ArrayList<>(products);
+        Map<Long, ProductResponse> index = new HashMap<>(byId);
+        Instant latest = lastUpdatedAt;
+        for (ProductResponse product : replacements) {
+            ProductResponse previous = byId.get(product.getId());
+            if (previous == null || !previous.getCreatedAt().equals(product.getCreatedAt())) {
+                continue;
+            }
+            next.set(Collections.binarySearch(products, previous, ORDER), product);
+            index.put(product.getId(), product);
+            if (latest == null || product.getUpdatedAt().isAfter(latest)) {
+                latest = product.getUpdatedAt();
+            }
+        }
+        return new CatalogSnapshot(nextVersion, nextSource, next, index, latest);
+    }
+}
@@ -0,0 +1,6 @@
+package com.codeop.store.catalog;
+
+import java.time.Instant;
+
+public record CatalogVersion(Long productCount, Instant lastUpdatedAt) {
+}
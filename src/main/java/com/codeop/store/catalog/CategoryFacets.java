@@ -0,0 +1,81 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-category counts of active products kept current from product change events, so facets never scan the
+ * table. Inactive products are left out, as they are from the storefront listing.
+ */
+@Component
+public class CategoryFacets {
+
+    private final ProductRepository productRepository;
+    private final ProductSearcher productSearcher;
+
+    private Map<Long, String> categoryByProduct = new HashMap<>();
+    private Map<String, Long> counts = new HashMap<>();
+
+    public CategoryFacets(ProductRepository productRepository, ProductSearcher productSearcher) {
+        this.productRepository = productRepository;
+        this.productSearcher = productSearcher;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public void rebuild() {
+        Map<Long, String> freshCategories = new HashMap<>();
+        Map<String, Long> freshCounts = new HashMap<>();
+        for (ProductCategory row : productRepository.findActiveCategories()) {
+            if (row.category() != null) {
+                freshCategories.put(row.productId(), row.category());
+                freshCounts.merge(row.category(), 1L, Long::sum);
+            }
+        }
+        synchronized (this) {
+            categoryByProduct = freshCategories;
+            counts = freshCounts;
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductSaved(ProductSavedEvent event) {
+        Product product = event.product();
+        remove(product.getId());
+        if (product.isActive() && product.getCategory() != null) {
+            categoryByProduct.put(product.getId(), product.getCategory());
+            counts.merge(product.getCategory(), 1L, Long::sum);
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductDeleted(ProductDeletedEvent event) {
+        remove(event.productId());
+    }
+
+    public synchronized Map<String, Long> counts() {
+        return Map.copyOf(counts);
+    }
+
+    public Map<String, Long> counts(String query) {
+        if (query == null || query.isBlank()) {
+            return counts();
+        }
+        return productSearcher.countByCategory(query, this::categoryOf);
+    }
+
+    private synchronized String categoryOf(Long productId) {
+        return categoryByProduct.get(productId);
+    }
+
+    private void remove(Long productId) {
+        String previous = categoryByProduct.remove(productId);
+        if (previous != null) {
+            counts.computeIfPresent(previous, (category, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.codeop.store.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: quoted fields may contain separators, doubled quotes and line breaks.
+ * Malformed input (a quote left open at the end of the stream) is reported as {@link IllegalArgumentException}.
+ */
+class CsvReader {
+
+    private final Reader reader;
+    private int pending = -2;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    List<String> next() throws IOException {
+        int ch = read();
+        if (ch == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (ch == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                if (ch == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        ch = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                if (ch == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) ch);
+            }
+            ch = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int ch = pending;
+            pending = -2;
+            return ch;
+        }
+        return reader.read();
+    }
+}
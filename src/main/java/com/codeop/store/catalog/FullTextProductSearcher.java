@@ -0,0 +1,109 @@
+package com.codeop.store.catalog;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * PostgreSQL-backed search: a generated, weighted {@code tsvector} column behind a GIN index for
+ * token prefixes, plus {@code pg_trgm} indexes on name and SKU for fuzzy matches.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.search", name = "mode", havingValue = "full-text")
+public class FullTextProductSearcher implements ProductSearcher {
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            """
+            ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+                setweight(to_tsvector('simple', coalesce(name, '')), 'A')
+                || setweight(to_tsvector('simple', coalesce(sku, '')), 'A')
+                || setweight(to_tsvector('simple', coalesce(category, '')), 'B')
+                || setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+            ) STORED
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING GIN (lower(name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_products_sku_trgm ON products USING GIN (lower(sku) gin_trgm_ops)"
+    );
+
+    // Rank is scaled to an integer so the (score, id) keyset compares exactly across pages.
+    private static final String RANKED = """
+            SELECT id, score FROM (
+                SELECT p.id,
+                       round((ts_rank(p.search_vector, q.query)
+                              + greatest(similarity(lower(p.name), :term),
+                                         similarity(lower(coalesce(p.sku, '')), :term))) * 1000000)::int AS score
+                FROM products p, to_tsquery('simple', :tsquery) AS q(query)
+                WHERE p.search_vector @@ q.query
+                   OR lower(p.name) % :term
+                   OR lower(p.sku) % :term
+            ) ranked
+            """;
+
+    private static final String CATEGORY_COUNTS = """
+            SELECT p.category, count(*) AS hits
+            FROM products p, to_tsquery('simple', :tsquery) AS q(query)
+            WHERE p.active AND p.category IS NOT NULL
+              AND (p.search_vector @@ q.query OR lower(p.name) % :term OR lower(p.sku) % :term)
+            GROUP BY p.category
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public FullTextProductSearcher(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSchema() {
+        SCHEMA.forEach(jdbcTemplate::execute);
+    }
+
+    @Override
+    public List<SearchHit> search(String query, SearchHit after, int limit) {
+        List<String> tokens = ProductSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = matchParams(query, tokens).addValue("limit", limit);
+        String sql = RANKED;
+        if (after != null) {
+            sql += "WHERE score < :afterScore OR (score = :afterScore AND id > :afterId)\n";
+            params.addValue("afterScore", after.score()).addValue("afterId", after.productId());
+        }
+        sql += "ORDER BY score DESC, id ASC LIMIT :limit";
+        return namedJdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new SearchHit(rs.getLong("id"), rs.getInt("score")));
+    }
+
+    // Counted in the database: fetching every hit just to group it would be an unbounded read per facet request.
+    @Override
+    public Map<String, Long> countByCategory(String query, Function<Long, String> categoryOf) {
+        List<String> tokens = ProductSearchIndex.tokenize(query);
+        Map<String, Long> counts = new HashMap<>();
+        if (!tokens.isEmpty()) {
+            namedJdbcTemplate.query(CATEGORY_COUNTS, matchParams(query, tokens),
+                    rs -> { counts.put(rs.getString("category"), rs.getLong("hits")); });
+        }
+        return counts;
+    }
+
+    private static MapSqlParameterSource matchParams(String query, List<String> tokens) {
+        return new MapSqlParameterSource()
+                .addValue("term", query.trim().toLowerCase(Locale.ROOT))
+                .addValue("tsquery", tokens.stream().map(token -> token + ":*").collect(Collectors.joining(" & ")));
+    }
+}
@@ -0,0 +1,86 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.inventory.StockChangedEvent;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Read-through cache of detached {@link Product} rows for cart and checkout lookups.
+ * Cached instances are shared between requests and must be treated as read-only.
+ */
+@Component
+public class ProductCache {
+
+    private final ProductRepository productRepository;
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(ProductRepository productRepository,
+                        @Value("${app.product-cache.maximum-size}") long maximumSize,
+                        @Value("${app.product-cache.expire-after-write}") Duration expireAfterWrite) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Product> findById(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    public Map<Long, Product> findAllById(Collection<Long> ids) {
+        return cache.getAll(ids, missing -> productRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity())));
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @EventListener
+    public void onProductSaved(ProductSavedEvent event) {
+        evict(event.product().getId());
+    }
+
+    @EventListener(CatalogImportedEvent.class)
+    public void onCatalogImported() {
+        evictAll();
+    }
+
+    @EventListener
+    public void onProductDeleted(ProductDeletedEvent event) {
+        evict(event.productId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        cache.invalidateAll(event.productIds());
+    }
+}
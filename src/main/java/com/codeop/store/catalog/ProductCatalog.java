@@ -0,0 +1,95 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.inventory.StockChangedEvent;
+import com.codeop.store.repository.ProductRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Holds the current {@link CatalogSnapshot} for storefront reads. Product events swap in an updated copy that
+ * records the table version it matches; stock changes, which every order makes, are collected and patched in
+ * together on a short interval. A periodic check reloads the snapshot when the table changed behind the
+ * application's back.
+ */
+@Component
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<CatalogSnapshot> current;
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    public ProductCatalog(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        this.current = new AtomicReference<>(new CatalogSnapshot(nextVersion(), null, List.of()));
+    }
+
+    public CatalogSnapshot current() {
+        return current.get();
+    }
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public synchronized void reload() {
+        CatalogVersion source = productRepository.findCatalogVersion();
+        current.set(new CatalogSnapshot(nextVersion(), source, productRepository.findActiveResponses()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval}",
+            initialDelayString = "${app.catalog.refresh-interval}")
+    public synchronized void refreshIfStale() {
+        CatalogVersion source = productRepository.findCatalogVersion();
+        CatalogVersion known = current.get().source();
+        if (known == null || !Objects.equals(source.productCount(), known.productCount())
+                || !Objects.equals(source.lastUpdatedAt(), known.lastUpdatedAt())) {
+            current.set(new CatalogSnapshot(nextVersion(), source, productRepository.findActiveResponses()));
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductSaved(ProductSavedEvent event) {
+        // Re-read rather than built from the entity: the projection adds stock held in shards.
+        Long productId = event.product().getId();
+        current.set(current.get().with(nextVersion(), productRepository.findCatalogVersion(), Set.of(productId),
+                productRepository.findActiveResponsesByIdIn(List.of(productId))));
+    }
+
+    @EventListener
+    public synchronized void onProductDeleted(ProductDeletedEvent event) {
+        current.set(current.get().with(nextVersion(), productRepository.findCatalogVersion(),
+                Set.of(event.productId()), List.of()));
+    }
+
+    // Orders and stock admin change stock without a product save. Only the ids are noted here, on the committing
+    // thread; applyStockChanges re-reads them in one go.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        stockChanged.addAll(event.productIds());
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.stock-refresh-interval}")
+    public synchronized void applyStockChanges() {
+        if (stockChanged.isEmpty()) {
+            return;
+        }
+        // Removed before the read, so a change committed after it is noted again for the next pass.
+        List<Long> productIds = new ArrayList<>(stockChanged);
+        productIds.forEach(stockChanged::remove);
+        current.set(current.get().withReplaced(nextVersion(), productRepository.findCatalogVersion(),
+                productRepository.findActiveResponsesByIdIn(productIds)));
+    }
+
+    private String nextVersion() {
+        return epoch + "." + versions.incrementAndGet();
+    }
+}
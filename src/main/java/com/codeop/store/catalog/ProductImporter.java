@@ -0,0 +1,279 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.dto.ImportResult;
+import com.codeop.store.dto.ImportRowError;
+import com.codeop.store.dto.ProductRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams CSV or NDJSON rows through bean validation and upserts them by SKU with batched JDBC,
+ * bypassing the entity layer (IDENTITY keys rule out Hibernate insert batching). Rows that would not
+ * change anything are skipped by the upsert so unchanged feed lines cost no write.
+ */
+@Component
+public class ProductImporter {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String UPSERT = """
+            INSERT INTO products (name, description, price, currency, sku, stock_quantity, image_url, category,
+                                  active, version, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, TRUE), 0, now(), now())
+            ON CONFLICT (sku) DO UPDATE SET
+                name = EXCLUDED.name,
+                description = EXCLUDED.description,
+                price = EXCLUDED.price,
+                currency = EXCLUDED.currency,
+                stock_quantity = EXCLUDED.stock_quantity,
+                image_url = EXCLUDED.image_url,
+                category = EXCLUDED.category,
+                active = COALESCE(?, products.active),
+                version = products.version + 1,
+                updated_at = now()
+            WHERE (products.name, products.description, products.price, products.currency, products.stock_quantity,
+                   products.image_url, products.category, products.active)
+                  IS DISTINCT FROM
+                  (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.currency, EXCLUDED.stock_quantity,
+                   EXCLUDED.image_url, EXCLUDED.category, COALESCE(?, products.active))
+            """;
+    // now() is fixed for the transaction, so this counts exactly the rows the batch inserted or changed. The
+    // batch update counts cannot be used: with reWriteBatchedInserts the driver reports SUCCESS_NO_INFO.
+    private static final String COUNT_WRITTEN =
+            "SELECT count(*) FROM products WHERE sku = ANY (?) AND updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader ndjsonReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ProductImporter(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           Validator validator,
+                           JsonMapper jsonMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${app.import.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.ndjsonReader = jsonMapper.readerFor(ProductRequest.class);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importNdjson(Reader source) throws IOException {
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.offer(row, ndjsonReader.readValue(line));
+            } catch (JacksonException ex) {
+                batch.malformed(row, null, "Malformed JSON: " + ex.getOriginalMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    public ImportResult importCsv(Reader source) throws IOException {
+        Batch batch = new Batch();
+        CsvReader reader = new CsvReader(new BufferedReader(source));
+        List<String> header;
+        try {
+            header = reader.next();
+        } catch (IllegalArgumentException ex) {
+            batch.malformed(0, null, ex.getMessage());
+            return batch.finish();
+        }
+        if (header == null) {
+            return batch.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        long row = 0;
+        while (true) {
+            List<String> record;
+            try {
+                record = reader.next();
+            } catch (IllegalArgumentException ex) {
+                // Only an unterminated quote gets here, and it has swallowed the rest of the input.
+                batch.malformed(row + 1, null, ex.getMessage());
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                batch.offer(row, fromCsv(columns, record));
+            } catch (IllegalArgumentException ex) {
+                batch.malformed(row, column(columns, record, "sku"), ex.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    private ProductRequest fromCsv(Map<String, Integer> columns, List<String> record) {
+        ProductRequest request = new ProductRequest();
+        request.setName(column(columns, record, "name"));
+        request.setDescription(column(columns, record, "description"));
+        request.setCurrency(column(columns, record, "currency"));
+        request.setSku(column(columns, record, "sku"));
+        request.setImageUrl(column(columns, record, "imageurl"));
+        request.setCategory(column(columns, record, "category"));
+        String price = column(columns, record, "price");
+        String stock = column(columns, record, "stockquantity");
+        String active = column(columns, record, "active");
+        try {
+            request.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("price: not a number");
+        }
+        try {
+            request.setStockQuantity(stock == null ? null : Integer.valueOf(stock));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("stockQuantity: not an integer");
+        }
+        request.setActive(active == null ? null : Boolean.valueOf(active));
+        return request;
+    }
+
+    private String column(Map<String, Integer> columns, List<String> record, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void bind(PreparedStatement statement, ProductRequest request) throws SQLException {
+        statement.setString(1, request.getName());
+        statement.setString(2, request.getDescription());
+        statement.setBigDecimal(3, request.getPrice());
+        statement.setString(4, request.getCurrency());
+        statement.setString(5, request.getSku());
+        statement.setObject(6, request.getStockQuantity(), Types.INTEGER);
+        statement.setString(7, request.getImageUrl());
+        statement.setString(8, request.getCategory());
+        statement.setObject(9, request.getActive(), Types.BOOLEAN);
+        statement.setObject(10, request.getActive(), Types.BOOLEAN);
+        statement.setObject(11, request.getActive(), Types.BOOLEAN);
+    }
+
+    private final class Batch {
+
+        private final ImportResult result = new ImportResult();
+        // Keyed by SKU: a multi-row upsert may not touch the same row twice, so the last row wins.
+        private final Map<String, Long> rowsBySku = new LinkedHashMap<>();
+        private final Map<String, ProductRequest> requestsBySku = new LinkedHashMap<>();
+
+        void offer(long row, ProductRequest request) {
+            result.setReceived(result.getReceived() + 1);
+            if (request.getSku() == null || request.getSku().isBlank()) {
+                reject(row, null, "sku: must not be blank");
+                return;
+            }
+            Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, request.getSku(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            rowsBySku.remove(request.getSku());
+            rowsBySku.put(request.getSku(), row);
+            requestsBySku.put(request.getSku(), request);
+            if (requestsBySku.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void malformed(long row, String sku, String message) {
+            result.setReceived(result.getReceived() + 1);
+            reject(row, sku, message);
+        }
+
+        private void reject(long row, String sku, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new ImportRowError(row, sku, message));
+            }
+        }
+
+        ImportResult finish() {
+            flush();
+            if (result.getUpserted() > 0) {
+                eventPublisher.publishEvent(new CatalogImportedEvent(result.getUpserted()));
+            }
+            return result;
+        }
+
+        private void flush() {
+            if (requestsBySku.isEmpty()) {
+                return;
+            }
+            List<ProductRequest> requests = new ArrayList<>(requestsBySku.values());
+            List<Long> rows = new ArrayList<>(rowsBySku.values());
+            requestsBySku.clear();
+            rowsBySku.clear();
+            try {
+                String[] skus = requests.stream().map(ProductRequest::getSku).toArray(String[]::new);
+                Integer written = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(UPSERT, requests, requests.size(), ProductImporter.this::bind);
+                    return jdbcTemplate.queryForObject(COUNT_WRITTEN, Integer.class, (Object) skus);
+                });
+                result.setUpserted(result.getUpserted() + written);
+            } catch (DataAccessException batchFailure) {
+                // Replay row by row so the failure is pinned to the offending rows only.
+                for (int i = 0; i < requests.size(); i++) {
+                    ProductRequest request = requests.get(i);
+                    try {
+                        Integer written = transactionTemplate.execute(status ->
+                                jdbcTemplate.update(UPSERT, statement -> bind(statement, request)));
+                        result.setUpserted(result.getUpserted() + written);
+                    } catch (DataAccessException rowFailure) {
+                        reject(rows.get(i), request.getSku(), rowFailure.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
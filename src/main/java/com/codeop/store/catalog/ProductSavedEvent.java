@@ -0,0 +1,6 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.model.Product;
+
+public record ProductSavedEvent(Product product) {
+}
@@ -0,0 +1,186 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tokenized inverted index over product name, SKU, category and description.
+ * Every query token must prefix-match a term of the product; hits are ranked by field weight.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.search", name = "mode", havingValue = "index", matchIfMissing = true)
+public class ProductSearchIndex implements ProductSearcher {
+
+    public static final Comparator<SearchHit> RANKING = Comparator.comparingInt(SearchHit::score).reversed()
+            .thenComparingLong(SearchHit::productId);
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int SKU_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_TERM_BONUS = 2;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, Set<String>> termsByProduct = new HashMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public void rebuild() {
+        NavigableMap<String, Map<Long, Integer>> freshPostings = new TreeMap<>();
+        Map<Long, Set<String>> freshTerms = new HashMap<>();
+        for (Product product : productRepository.findAll()) {
+            addDocument(freshPostings, freshTerms, product);
+        }
+        lock.writeLock().lock();
+        try {
+            postings = freshPostings;
+            termsByProduct = freshTerms;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductSaved(ProductSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.product().getId());
+            addDocument(postings, termsByProduct, event.product());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductDeleted(ProductDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.productId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchHit> search(String query, SearchHit after, int limit) {
+        List<SearchHit> hits = search(query);
+        int from = 0;
+        if (after != null) {
+            int position = Collections.binarySearch(hits, after, RANKING);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        return hits.subList(from, Math.min(hits.size(), from + limit));
+    }
+
+    public List<SearchHit> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : queryTokens) {
+                Map<Long, Integer> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> hits.add(new SearchHit(id, score)));
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> term
+                : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int bonus = term.getKey().equals(token) ? EXACT_TERM_BONUS : 1;
+            term.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * bonus, Math::max));
+        }
+        return tokenScores;
+    }
+
+    private void addDocument(NavigableMap<String, Map<Long, Integer>> target,
+                             Map<Long, Set<String>> terms,
+                             Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        collect(weights, product.getName(), NAME_WEIGHT);
+        collect(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        collect(weights, product.getCategory(), CATEGORY_WEIGHT);
+        collect(weights, product.getSku(), SKU_WEIGHT);
+        Long id = product.getId();
+        weights.forEach((term, weight) -> target.computeIfAbsent(term, key -> new HashMap<>()).put(id, weight));
+        terms.put(id, new HashSet<>(weights.keySet()));
+    }
+
+    private void removeDocument(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private void collect(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Math::max);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,30 @@
+package com.codeop.store.catalog;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ranked product search. Hits are ordered by {@link ProductSearchIndex#RANKING}; {@code after}
+ * is the last hit of the previous page, or {@code null} for the first page.
+ */
+public interface ProductSearcher {
+
+    List<SearchHit> search(String query, SearchHit after, int limit);
+
+    /**
+     * Matching products per category; {@code categoryOf} gives the category a hit is counted under, or
+     * {@code null} to leave it out.
+     */
+    default Map<String, Long> countByCategory(String query, Function<Long, String> categoryOf) {
+        Map<String, Long> counts = new HashMap<>();
+        for (SearchHit hit : search(query, null, Integer.MAX_VALUE)) {
+            String category = categoryOf.apply(hit.productId());
+            if (category != null) {
+                counts.merge(category, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,128 @@
+package com.codeop.store.catalog;
+
+import com.codeop.store.dto.ProductSuggestionResponse;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prefix autocomplete over active product names and SKUs. Keys (the SKU, the full name and every
+ * word-start suffix of the name) live in one sorted, immutable array that readers binary-search
+ * without locking; writers build a replacement array and publish it through a volatile field.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key)
+            .thenComparingLong(entry -> entry.suggestion().getId());
+
+    private final ProductRepository productRepository;
+
+    private volatile Entry[] entries = new Entry[0];
+
+    public ProductSuggester(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public void rebuild() {
+        List<Entry> fresh = new ArrayList<>();
+        for (ProductSuggestionResponse suggestion : productRepository.findActiveSuggestions()) {
+            addKeys(fresh, suggestion);
+        }
+        Entry[] sorted = fresh.toArray(Entry[]::new);
+        Arrays.sort(sorted, ORDER);
+        synchronized (this) {
+            entries = sorted;
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductSaved(ProductSavedEvent event) {
+        Product product = event.product();
+        List<Entry> added = new ArrayList<>();
+        if (product.isActive()) {
+            addKeys(added, new ProductSuggestionResponse(product.getId(), product.getName(), product.getSku()));
+            added.sort(ORDER);
+        }
+        entries = merge(entries, product.getId(), added);
+    }
+
+    @EventListener
+    public synchronized void onProductDeleted(ProductDeletedEvent event) {
+        entries = merge(entries, event.productId(), List.of());
+    }
+
+    public List<ProductSuggestionResponse> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Entry[] snapshot = entries;
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot[mid].key().compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        Map<Long, ProductSuggestionResponse> matches = new LinkedHashMap<>();
+        for (int i = low; i < snapshot.length && matches.size() < limit; i++) {
+            if (!snapshot[i].key().startsWith(key)) {
+                break;
+            }
+            ProductSuggestionResponse suggestion = snapshot[i].suggestion();
+            matches.putIfAbsent(suggestion.getId(), suggestion);
+        }
+        return List.copyOf(matches.values());
+    }
+
+    private Entry[] merge(Entry[] current, Long productId, List<Entry> added) {
+        Entry[] merged = new Entry[current.length + added.size()];
+        int size = 0;
+        int next = 0;
+        for (Entry entry : current) {
+            if (entry.suggestion().getId().equals(productId)) {
+                continue;
+            }
+            while (next < added.size() && ORDER.compare(added.get(next), entry) < 0) {
+                merged[size++] = added.get(next++);
+            }
+            merged[size++] = entry;
+        }
+        while (next < added.size()) {
+            merged[size++] = added.get(next++);
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private void addKeys(List<Entry> target, ProductSuggestionResponse suggestion) {
+        if (suggestion.getSku() != null && !suggestion.getSku().isBlank()) {
+            target.add(new Entry(suggestion.getSku().toLowerCase(Locale.ROOT), suggestion));
+        }
+        if (suggestion.getName() == null) {
+            return;
+        }
+        String name = suggestion.getName().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isWhitespace(name.charAt(i)) && (i == 0 || Character.isWhitespace(name.charAt(i - 1)))) {
+                target.add(new Entry(name.substring(i), suggestion));
+            }
+        }
+    }
+
+    private record Entry(String key, ProductSuggestionResponse suggestion) {
+    }
+}
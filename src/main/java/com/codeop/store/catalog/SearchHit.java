@@ -0,0 +1,4 @@
+package com.codeop.store.catalog;
+
+public record SearchHit(long productId, int score) {
+}
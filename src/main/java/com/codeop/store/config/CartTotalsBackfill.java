@@ -0,0 +1,22 @@
+package com.codeop.store.config;
+
+import com.codeop.store.repository.CartRepository;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class CartTotalsBackfill implements CommandLineRunner {
+
+    private final CartRepository cartRepository;
+
+    public CartTotalsBackfill(CartRepository cartRepository) {
+        this.cartRepository = cartRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        cartRepository.backfillTotals();
+    }
+}
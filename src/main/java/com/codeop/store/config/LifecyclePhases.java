@@ -0,0 +1,19 @@
+package com.codeop.store.config;
+
+import org.springframework.boot.web.server.context.WebServerGracefulShutdownLifecycle;
+
+/**
+ * Phases for the in-memory stores that sit in front of the database. Spring starts lower phases first and stops
+ * them last, so these stores are ready before the web server takes its first request and are still draining
+ * to the database after it has answered its last one.
+ */
+public final class LifecyclePhases {
+
+    /**
+     * Just below the web server, which starts and stops 1024 phases below its graceful-shutdown lifecycle.
+     */
+    public static final int BEFORE_WEB_SERVER = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+
+    private LifecyclePhases() {
+    }
+}
@@ -0,0 +1,23 @@
+package com.codeop.store.controller;
+
+import com.codeop.store.cart.CartReaper;
+import com.codeop.store.cart.ReaperStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/carts")
+public class CartAdminController {
+
+    private final CartReaper cartReaper;
+
+    public CartAdminController(CartReaper cartReaper) {
+        this.cartReaper = cartReaper;
+    }
+
+    @GetMapping("/reaper")
+    public ReaperStats reaperStats() {
+        return cartReaper.stats();
+    }
+}
@@ -1,20 +1,31 @@
 package com.codeop.store.controller;
 
+import com.codeop.store.cart.CartCheckout;
+import com.codeop.store.cart.CartStore;
+import com.codeop.store.catalog.ProductCache;
+import com.codeop.store.dto.CartBadgeResponse;
+import com.codeop.store.dto.CartItemOperation;
 import com.codeop.store.dto.CartItemRequest;
 import com.codeop.store.dto.CartItemResponse;
+import com.codeop.store.dto.CartPatchRequest;
 import com.codeop.store.dto.CartResponse;
+import com.codeop.store.dto.CheckoutRequest;
+import com.codeop.store.dto.OrderResponse;
 import com.codeop.store.model.Cart;
 import com.codeop.store.model.CartItem;
 import com.codeop.store.model.Product;
-import com.codeop.store.repository.CartRepository;
-import com.codeop.store.repository.ProductRepository;
+import com.codeop.store.pricing.Money;
 import jakarta.validation.Valid;
-import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -28,93 +39,131 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/api/carts")
 public class CartController {
 
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final CartCheckout cartCheckout;
+    private final ProductCache productCache;
 
-    public CartController(CartRepository cartRepository, ProductRepository productRepository) {
-        this.cartRepository = cartRepository;
-        this.productRepository = productRepository;
+    public CartController(CartStore cartStore, CartCheckout cartCheckout, ProductCache productCache) {
+        this.cartStore = cartStore;
+        this.cartCheckout = cartCheckout;
+        this.productCache = productCache;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public CartResponse createCart() {
-        Cart cart = new Cart();
-        return toResponse(cartRepository.save(cart));
+        return toResponse(cartStore.create());
     }
 
     @GetMapping("/{id}")
     public CartResponse getCart(@PathVariable Long id) {
-        Cart cart = cartRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
-        return toResponse(cart);
+        return cartStore.read(id, this::toResponse);
+    }
+
+    @GetMapping("/{id}/badge")
+    public CartBadgeResponse getBadge(@PathVariable Long id) {
+        return cartStore.badge(id);
     }
 
     @PostMapping("/{id}/items")
     public CartResponse addItem(@PathVariable Long id, @Valid @RequestBody CartItemRequest request) {
-        Cart cart = cartRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
-        Product product = productRepository.findById(request.getProductId())
+        Product product = productCache.findById(request.getProductId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        return cartStore.update(id, cart -> addItem(cart, product, request.getQuantity()), this::toResponse);
+    }
 
-        Optional<CartItem> existing = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(product.getId()))
-                .findFirst();
+    private void addItem(Cart cart, Product product, int quantity) {
+        Optional<CartItem> existing = cart.findItemByProductId(product.getId());
         if (existing.isPresent()) {
             CartItem item = existing.get();
-            item.setQuantity(item.getQuantity() + request.getQuantity());
+            cart.changeQuantity(item, item.getQuantity() + quantity);
         } else {
             CartItem item = new CartItem();
             item.setProduct(product);
-            item.setQuantity(request.getQuantity());
-            item.setUnitPrice(product.getPrice());
+            item.setQuantity(quantity);
+            item.setUnitPrice(Money.toMinor(product.getPrice()));
             cart.addItem(item);
         }
-        Cart saved = cartRepository.save(cart);
-        return toResponse(saved);
     }
 
     @PutMapping("/{id}/items/{itemId}")
     public CartResponse updateItem(@PathVariable Long id,
                                    @PathVariable Long itemId,
                                    @Valid @RequestBody CartItemRequest request) {
-        Cart cart = cartRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
-        CartItem item = cart.getItems().stream()
-                .filter(entry -> entry.getId().equals(itemId))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found"));
-        item.setQuantity(request.getQuantity());
-        Cart saved = cartRepository.save(cart);
-        return toResponse(saved);
+        return cartStore.update(id,
+                cart -> cart.changeQuantity(findItem(cart, itemId), request.getQuantity()),
+                this::toResponse);
     }
 
     @DeleteMapping("/{id}/items/{itemId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteItem(@PathVariable Long id, @PathVariable Long itemId) {
-        Cart cart = cartRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
-        CartItem item = cart.getItems().stream()
-                .filter(entry -> entry.getId().equals(itemId))
-                .findFirst()
+        cartStore.update(id, cart -> cart.removeItem(findItem(cart, itemId)));
+    }
+
+    @PatchMapping("/{id}/items")
+    public CartResponse patchItems(@PathVariable Long id, @Valid @RequestBody CartPatchRequest request) {
+        List<CartItemOperation> operations = request.getOperations();
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> itemIds = new HashSet<>();
+        for (CartItemOperation operation : operations) {
+            switch (operation.getOp()) {
+                case ADD -> require(operation.getProductId() != null && operation.getQuantity() != null,
+                        "ADD needs productId and quantity");
+                case UPDATE -> require(operation.getItemId() != null && operation.getQuantity() != null,
+                        "UPDATE needs itemId and quantity");
+                case REMOVE -> require(operation.getItemId() != null, "REMOVE needs itemId");
+            }
+            if (operation.getOp() == CartItemOperation.Type.ADD) {
+                productIds.add(operation.getProductId());
+            } else {
+                require(itemIds.add(operation.getItemId()),
+                        "Cart item " + operation.getItemId() + " appears more than once");
+            }
+        }
+        Map<Long, Product> products = productCache.findAllById(productIds);
+        if (products.size() != productIds.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+
+        return cartStore.update(id, cart -> {
+            // Resolve every item before touching the cart, so a bad id leaves it unchanged.
+            Map<Long, CartItem> items = new HashMap<>();
+            itemIds.forEach(itemId -> items.put(itemId, findItem(cart, itemId)));
+            for (CartItemOperation operation : operations) {
+                switch (operation.getOp()) {
+                    case ADD -> addItem(cart, products.get(operation.getProductId()), operation.getQuantity());
+                    case UPDATE -> cart.changeQuantity(items.get(operation.getItemId()), operation.getQuantity());
+                    case REMOVE -> cart.removeItem(items.get(operation.getItemId()));
+                }
+            }
+        }, this::toResponse);
+    }
+
+    @PostMapping("/{id}/checkout")
+    @ResponseStatus(HttpStatus.CREATED)
+    public OrderResponse checkout(@PathVariable Long id, @Valid @RequestBody CheckoutRequest request) {
+        return cartCheckout.checkout(id, request);
+    }
+
+    private static void require(boolean valid, String message) {
+        if (!valid) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+    }
+
+    private CartItem findItem(Cart cart, Long itemId) {
+        return cart.findItem(itemId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found"));
-        cart.removeItem(item);
-        cartRepository.save(cart);
     }
 
     private CartResponse toResponse(Cart cart) {
         CartResponse response = new CartResponse();
         response.setId(cart.getId());
-        List<CartItemResponse> items = cart.getItems().stream().map(this::toItemResponse).toList();
-        response.setItems(items);
-        response.setTotal(items.stream()
-                .map(CartItemResponse::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        response.setCurrency(cart.getItems().stream()
-                .map(item -> item.getProduct().getCurrency())
-                .filter(value -> value != null && !value.isBlank())
-                .findFirst()
-                .orElse("USD"));
+        response.setItems(cart.getItems().stream().map(this::toItemResponse).toList());
+        response.setItemCount(cart.getItemCount());
+        response.setTotal(Money.toDecimal(cart.getSubtotal()));
+        response.setCurrency(cart.getCurrency() == null ? "USD" : cart.getCurrency());
         return response;
     }
 
@@ -125,9 +174,8 @@ public class CartController {
         response.setProductName(item.getProduct().getName());
         response.setImageUrl(item.getProduct().getImageUrl());
         response.setQuantity(item.getQuantity());
-        response.setUnitPrice(item.getUnitPrice());
-        response.setLineTotal(item.getUnitPrice()
-                .multiply(BigDecimal.valueOf(item.getQuantity())));
+        response.setUnitPrice(Money.toDecimal(item.getUnitPrice()));
+        response.setLineTotal(Money.toDecimal(Money.times(item.getUnitPrice(), item.getQuantity())));
         return response;
     }
 }
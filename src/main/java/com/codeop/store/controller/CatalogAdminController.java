@@ -0,0 +1,82 @@
+package com.codeop.store.controller;
+
+import com.codeop.store.catalog.CatalogExporter;
+import com.codeop.store.catalog.ProductCache;
+import com.codeop.store.catalog.ProductImporter;
+import com.codeop.store.dto.CacheStatsResponse;
+import com.codeop.store.dto.ImportResult;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/catalog")
+public class CatalogAdminController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    private final ProductCache productCache;
+    private final CatalogExporter catalogExporter;
+    private final ProductImporter productImporter;
+
+    public CatalogAdminController(ProductCache productCache,
+                                  CatalogExporter catalogExporter,
+                                  ProductImporter productImporter) {
+        this.productCache = productCache;
+        this.catalogExporter = catalogExporter;
+        this.productImporter = productImporter;
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportCatalog(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog.ndjson\"");
+        catalogExporter.writeNdjson(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = {CSV, NDJSON})
+    public ImportResult importCatalog(HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            if (contentType.isCompatibleWith(MediaType.parseMediaType(CSV))) {
+                return productImporter.importCsv(reader);
+            }
+            return productImporter.importNdjson(reader);
+        }
+    }
+
+    @GetMapping("/cache")
+    public CacheStatsResponse cacheStats() {
+        CacheStats stats = productCache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setSize(productCache.size());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRate(stats.hitRate());
+        response.setLoadFailureCount(stats.loadFailureCount());
+        response.setEvictionCount(stats.evictionCount());
+        return response;
+    }
+
+    @DeleteMapping("/cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearCache() {
+        productCache.evictAll();
+    }
+}
@@ -0,0 +1,57 @@
+package com.codeop.store.controller;
+
+import com.codeop.store.dto.StockShardRequest;
+import com.codeop.store.dto.StockShardsResponse;
+import com.codeop.store.inventory.ShardedInventory;
+import com.codeop.store.model.Product;
+import com.codeop.store.model.StockShard;
+import com.codeop.store.repository.ProductRepository;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/admin/inventory")
+public class InventoryAdminController {
+
+    private final ShardedInventory shardedInventory;
+    private final ProductRepository productRepository;
+
+    public InventoryAdminController(ShardedInventory shardedInventory, ProductRepository productRepository) {
+        this.shardedInventory = shardedInventory;
+        this.productRepository = productRepository;
+    }
+
+    @GetMapping("/{productId}/shards")
+    public StockShardsResponse getShards(@PathVariable Long productId) {
+        return toResponse(productId);
+    }
+
+    @PutMapping("/{productId}/shards")
+    public StockShardsResponse splitStock(@PathVariable Long productId,
+                                          @Valid @RequestBody StockShardRequest request) {
+        shardedInventory.split(productId, request.getShards());
+        return toResponse(productId);
+    }
+
+    private StockShardsResponse toResponse(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        List<Integer> shards = shardedInventory.shards(productId).stream()
+                .map(StockShard::getQuantity)
+                .toList();
+        StockShardsResponse response = new StockShardsResponse();
+        response.setProductId(productId);
+        response.setStockQuantity(product.getStockQuantity() == null ? null
+                : product.getStockQuantity() + shards.stream().mapToInt(Integer::intValue).sum());
+        response.setShards(shards);
+        return response;
+    }
+}
@@ -1,24 +1,43 @@
 package com.codeop.store.controller;
 
+import com.codeop.store.catalog.ProductCache;
 import com.codeop.store.dto.OrderItemRequest;
 import com.codeop.store.dto.OrderItemResponse;
 import com.codeop.store.dto.OrderRequest;
 import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.dto.PageResponse;
+import com.codeop.store.idempotency.IdempotencyKeys;
+import com.codeop.store.inventory.StockReservations;
 import com.codeop.store.model.CustomerOrder;
 import com.codeop.store.model.OrderItem;
+import com.codeop.store.model.OrderStatus;
 import com.codeop.store.model.Product;
+import com.codeop.store.order.AsyncOrderIntake;
+import com.codeop.store.pricing.Money;
+import com.codeop.store.pricing.OrderPricing;
+import com.codeop.store.repository.OrderItemRepository;
+import com.codeop.store.repository.OrderItemView;
 import com.codeop.store.repository.OrderRepository;
-import com.codeop.store.repository.ProductRepository;
-import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -27,56 +46,155 @@ import org.springframework.web.server.ResponseStatusException;
 public class OrderController {
 
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductCache productCache;
+    private final StockReservations stockReservations;
+    private final IdempotencyKeys idempotencyKeys;
+    private final AsyncOrderIntake asyncOrderIntake;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public OrderController(OrderRepository orderRepository, ProductRepository productRepository) {
+    public OrderController(OrderRepository orderRepository,
+                           OrderItemRepository orderItemRepository,
+                           ProductCache productCache,
+                           StockReservations stockReservations,
+                           IdempotencyKeys idempotencyKeys,
+                           ObjectProvider<AsyncOrderIntake> asyncOrderIntake,
+                           @Value("${app.page-size}") int defaultPageSize,
+                           @Value("${app.max-page-size}") int maxPageSize) {
         this.orderRepository = orderRepository;
-        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productCache = productCache;
+        this.stockReservations = stockReservations;
+        this.idempotencyKeys = idempotencyKeys;
+        this.asyncOrderIntake = asyncOrderIntake.getIfAvailable();
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping
-    public List<OrderResponse> listOrders() {
-        return orderRepository.findAll().stream().map(this::toResponse).toList();
+    @Transactional(readOnly = true)
+    public PageResponse<OrderResponse> listOrders(
+            @RequestParam(name = "status", required = false) OrderStatus status,
+            @RequestParam(name = "customerEmail", required = false) String customerEmail,
+            @RequestParam(name = "from", required = false) Instant from,
+            @RequestParam(name = "to", required = false) Instant to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        int pageSize = PageCursor.clampSize(size, defaultPageSize, maxPageSize);
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null) {
+            String[] key = PageCursor.decode(cursor, 2);
+            afterCreatedAt = PageCursor.parseInstant(key[0]);
+            afterId = PageCursor.parseLong(key[1]);
+        }
+        // One extra row tells whether another page follows without a count query.
+        List<OrderResponse> rows = orderRepository.findPage(status, customerEmail, from, to, afterCreatedAt, afterId,
+                pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderResponse> page = hasMore ? rows.subList(0, pageSize) : rows;
+        attachItems(page);
+        String nextCursor = null;
+        if (hasMore) {
+            OrderResponse last = page.get(page.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new PageResponse<>(page, nextCursor, pageSize);
     }
 
     @GetMapping("/{id}")
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(@PathVariable Long id) {
-        CustomerOrder order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
-        return toResponse(order);
+        OrderResponse order = orderRepository.findResponseById(id).orElse(null);
+        if (order == null) {
+            // An order accepted by the async intake is reported as RECEIVED until its row is written.
+            if (asyncOrderIntake != null) {
+                return asyncOrderIntake.find(id).map(this::toResponse)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found");
+        }
+        attachItems(List.of(order));
+        return order;
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public OrderResponse createOrder(@Valid @RequestBody OrderRequest request) {
+    public ResponseEntity<OrderResponse> createOrder(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody OrderRequest request) {
+        if (asyncOrderIntake != null) {
+            OrderResponse accepted = idempotencyKeys.execute("orders", idempotencyKey, request, OrderResponse.class,
+                    () -> toResponse(asyncOrderIntake.submit(priceOrder(request))));
+            return ResponseEntity.accepted().location(URI.create("/api/orders/" + accepted.getId())).body(accepted);
+        }
+        OrderResponse created = idempotencyKeys.execute("orders", idempotencyKey, request, OrderResponse.class,
+                () -> placeOrder(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    private OrderResponse placeOrder(OrderRequest request) {
+        CustomerOrder saved = orderRepository.saveAndFlush(priceOrder(request));
+        Map<Long, Integer> quantities = new HashMap<>();
+        saved.getItems().forEach(item -> quantities.put(item.getProduct().getId(), item.getQuantity()));
+        // Stock rows are locked last so the locks are held only until commit.
+        saved.setReservedUntil(stockReservations.reserve(quantities));
+        return toResponse(saved);
+    }
+
+    private CustomerOrder priceOrder(OrderRequest request) {
         CustomerOrder order = new CustomerOrder();
         order.setCustomerName(request.getCustomerName());
         order.setCustomerEmail(request.getCustomerEmail());
         order.setCurrency(request.getCurrency());
 
-        BigDecimal total = BigDecimal.ZERO;
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-            if (product.getCurrency() != null && order.getCurrency() != null
-                    && !product.getCurrency().equalsIgnoreCase(order.getCurrency())) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Currency mismatch for product");
+        OrderPricing pricing = new OrderPricing(order.getCurrency());
+        // Repeated lines for the same product become one line; insertion order keeps the order as submitted.
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        try {
+            for (OrderItemRequest itemRequest : request.getItems()) {
+                quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Math::addExact);
             }
+        } catch (ArithmeticException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity too large");
+        }
+        Map<Long, Product> products = productCache.findAllById(quantities.keySet());
 
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+            }
+            long unitPrice = Money.toMinor(product.getPrice());
+            pricing.addLine(product.getCurrency(), unitPrice, line.getValue());
             OrderItem orderItem = new OrderItem();
             orderItem.setProduct(product);
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setUnitPrice(product.getPrice());
+            orderItem.setQuantity(line.getValue());
+            orderItem.setUnitPrice(unitPrice);
             order.addItem(orderItem);
+        }
+
+        order.setTotalAmount(pricing.total());
+        return order;
+    }
 
-            BigDecimal lineTotal = product.getPrice()
-                    .multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            total = total.add(lineTotal);
+    private void attachItems(List<OrderResponse> orders) {
+        Map<Long, List<OrderItemResponse>> itemsByOrder = new HashMap<>();
+        List<Long> orderIds = orders.stream().map(OrderResponse::getId).toList();
+        for (OrderItemView view : orderItemRepository.findViewsByOrderIds(orderIds)) {
+            itemsByOrder.computeIfAbsent(view.getOrderId(), key -> new ArrayList<>()).add(toItemResponse(view));
         }
+        orders.forEach(order -> order.setItems(itemsByOrder.getOrDefault(order.getId(), List.of())));
+    }
 
-        order.setTotalAmount(total);
-        CustomerOrder saved = orderRepository.save(order);
-        return toResponse(saved);
+    private OrderItemResponse toItemResponse(OrderItemView view) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setProductId(view.getProductId());
+        response.setProductName(view.getProductName());
+        response.setQuantity(view.getQuantity());
+        response.setUnitPrice(Money.toDecimal(view.getUnitPrice()));
+        response.setLineTotal(Money.toDecimal(Money.times(view.getUnitPrice(), view.getQuantity())));
+        return response;
     }
 
     private OrderResponse toResponse(CustomerOrder order) {
@@ -85,7 +203,7 @@ public class OrderController {
         response.setCustomerName(order.getCustomerName());
         response.setCustomerEmail(order.getCustomerEmail());
         response.setStatus(order.getStatus());
-        response.setTotalAmount(order.getTotalAmount());
+        response.setTotalAmount(Money.toDecimal(order.getTotalAmount()));
         response.setCurrency(order.getCurrency());
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
@@ -98,9 +216,8 @@ public class OrderController {
         response.setProductId(item.getProduct().getId());
         response.setProductName(item.getProduct().getName());
         response.setQuantity(item.getQuantity());
-        response.setUnitPrice(item.getUnitPrice());
-        response.setLineTotal(item.getUnitPrice()
-                .multiply(BigDecimal.valueOf(item.getQuantity())));
+        response.setUnitPrice(Money.toDecimal(item.getUnitPrice()));
+        response.setLineTotal(Money.toDecimal(Money.times(item.getUnitPrice(), item.getQuantity())));
         return response;
     }
 }
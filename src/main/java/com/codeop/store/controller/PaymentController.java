@@ -2,6 +2,7 @@ package com.codeop.store.controller;
 
 import com.codeop.store.dto.PaymentRequest;
 import com.codeop.store.dto.PaymentResponse;
+import com.codeop.store.idempotency.IdempotencyKeys;
 import com.codeop.store.model.CustomerOrder;
 import com.codeop.store.model.OrderStatus;
 import com.codeop.store.model.Payment;
@@ -9,6 +10,7 @@ import com.codeop.store.model.PaymentStatus;
 import com.codeop.store.repository.OrderRepository;
 import com.codeop.store.repository.PaymentRepository;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,29 +30,42 @@ public class PaymentController {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final IdempotencyKeys idempotencyKeys;
 
-    public PaymentController(PaymentRepository paymentRepository, OrderRepository orderRepository) {
+    public PaymentController(PaymentRepository paymentRepository,
+                             OrderRepository orderRepository,
+                             IdempotencyKeys idempotencyKeys) {
         this.paymentRepository = paymentRepository;
         this.orderRepository = orderRepository;
+        this.idempotencyKeys = idempotencyKeys;
     }
 
     @GetMapping
     public List<PaymentResponse> listPayments() {
-        return paymentRepository.findAll().stream().map(this::toResponse).toList();
+        return paymentRepository.findAllResponses();
     }
 
     @GetMapping("/{id}")
     public PaymentResponse getPayment(@PathVariable Long id) {
-        Payment payment = paymentRepository.findById(id)
+        return paymentRepository.findResponseById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Payment not found"));
-        return toResponse(payment);
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public PaymentResponse createPayment(@Valid @RequestBody PaymentRequest request) {
+    public PaymentResponse createPayment(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request) {
+        return idempotencyKeys.execute("payments", idempotencyKey, request, PaymentResponse.class,
+                () -> pay(request));
+    }
+
+    private PaymentResponse pay(PaymentRequest request) {
         CustomerOrder order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Order has been cancelled");
+        }
 
         BigDecimal amount = request.getAmount();
         String currency = request.getCurrency();
@@ -63,8 +79,10 @@ public class PaymentController {
         payment.setStatus(PaymentStatus.SUCCEEDED);
 
         Payment saved = paymentRepository.save(payment);
-        order.setStatus(OrderStatus.PAID);
-        orderRepository.save(order);
+        // Guarded update: loses against a reservation expiry that already cancelled the order.
+        if (orderRepository.markPaid(order.getId(), Instant.now()) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Order has been cancelled");
+        }
 
         return toResponse(saved);
     }
@@ -1,12 +1,40 @@
 package com.codeop.store.controller;
 
+import com.codeop.store.catalog.CatalogSnapshot;
+import com.codeop.store.catalog.CatalogVersion;
+import com.codeop.store.catalog.CategoryFacets;
+import com.codeop.store.catalog.ProductCache;
+import com.codeop.store.catalog.ProductCatalog;
+import com.codeop.store.catalog.ProductDeletedEvent;
+import com.codeop.store.catalog.ProductSavedEvent;
+import com.codeop.store.catalog.ProductSearcher;
+import com.codeop.store.catalog.ProductSuggester;
+import com.codeop.store.catalog.SearchHit;
+import com.codeop.store.dto.CategoryFacetResponse;
+import com.codeop.store.dto.PageResponse;
 import com.codeop.store.dto.ProductRequest;
 import com.codeop.store.dto.ProductResponse;
+import com.codeop.store.dto.ProductSuggestionResponse;
+import com.codeop.store.inventory.ShardedInventory;
 import com.codeop.store.model.Product;
 import com.codeop.store.repository.ProductRepository;
+import com.codeop.store.retry.OptimisticRetry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,36 +45,132 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final int DEFAULT_SUGGESTIONS = 8;
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final ProductRepository productRepository;
+    private final ProductSearcher productSearcher;
+    private final ProductCache productCache;
+    private final ProductCatalog productCatalog;
+    private final CategoryFacets categoryFacets;
+    private final ProductSuggester productSuggester;
+    private final ShardedInventory shardedInventory;
+    private final OptimisticRetry optimisticRetry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public ProductController(ProductRepository productRepository) {
+    public ProductController(ProductRepository productRepository,
+                             ProductSearcher productSearcher,
+                             ProductCache productCache,
+                             ProductCatalog productCatalog,
+                             CategoryFacets categoryFacets,
+                             ProductSuggester productSuggester,
+                             ShardedInventory shardedInventory,
+                             OptimisticRetry optimisticRetry,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.page-size}") int defaultPageSize,
+                             @Value("${app.max-page-size}") int maxPageSize) {
         this.productRepository = productRepository;
+        this.productSearcher = productSearcher;
+        this.productCache = productCache;
+        this.productCatalog = productCatalog;
+        this.categoryFacets = categoryFacets;
+        this.productSuggester = productSuggester;
+        this.shardedInventory = shardedInventory;
+        this.optimisticRetry = optimisticRetry;
+        this.eventPublisher = eventPublisher;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping
-    public List<ProductResponse> listProducts(@RequestParam(name = "q", required = false) String query) {
-        if (query == null || query.isBlank()) {
-            return productRepository.findAll().stream().map(this::toResponse).toList();
+    public ResponseEntity<PageResponse<ProductResponse>> listProducts(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size,
+            WebRequest webRequest) {
+        int pageSize = PageCursor.clampSize(size, defaultPageSize, maxPageSize);
+        if (!webRequest.isUserInRole("ADMIN")) {
+            CatalogSnapshot snapshot = productCatalog.current();
+            String etag = "\"catalog-" + snapshot.version() + "\"";
+            return conditional(webRequest, etag, snapshot.lastUpdatedAt(),
+                    () -> loadSnapshotPage(snapshot, query, cursor, pageSize));
         }
-        return productRepository
-                .findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseOrCategoryContainingIgnoreCaseOrSkuContainingIgnoreCase(
-                        query, query, query, query)
-                .stream()
-                .map(this::toResponse)
+        // Any product write moves the count or the latest updatedAt, so the pair versions every page.
+        CatalogVersion version = productRepository.findCatalogVersion();
+        String etag = "\"catalog-" + version.productCount() + "-" + micros(version.lastUpdatedAt()) + "\"";
+        return conditional(webRequest, etag, version.lastUpdatedAt(), () -> loadPage(query, cursor, pageSize));
+    }
+
+    @GetMapping("/facets")
+    public List<CategoryFacetResponse> categoryFacets(@RequestParam(name = "q", required = false) String query) {
+        return categoryFacets.counts(query).entrySet().stream()
+                .map(entry -> new CategoryFacetResponse(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(CategoryFacetResponse::getCount).reversed()
+                        .thenComparing(CategoryFacetResponse::getCategory))
                 .toList();
     }
 
+    @GetMapping("/suggest")
+    public List<ProductSuggestionResponse> suggest(@RequestParam(name = "prefix") String prefix,
+                                                   @RequestParam(name = "limit", required = false) Integer limit) {
+        return productSuggester.suggest(prefix, PageCursor.clampSize(limit, DEFAULT_SUGGESTIONS, MAX_SUGGESTIONS));
+    }
+
     @GetMapping("/{id}")
-    public ProductResponse getProduct(@PathVariable Long id) {
-        Product product = productRepository.findById(id)
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id, WebRequest webRequest) {
+        if (!webRequest.isUserInRole("ADMIN")) {
+            ProductResponse product = productCatalog.current().findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+            String etag = "\"product-" + product.getId() + "-" + micros(product.getUpdatedAt()) + "\"";
+            return conditional(webRequest, etag, product.getUpdatedAt(), () -> product);
+        }
+        Product product = productCache.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-        return toResponse(product);
+        // Built up front: a sharded product's last change may be on a shard row rather than the product.
+        ProductResponse response = toResponse(product);
+        String etag = "\"product-" + response.getId() + "-" + micros(response.getUpdatedAt()) + "\"";
+        return conditional(webRequest, etag, response.getUpdatedAt(), () -> response);
+    }
+
+    private PageResponse<ProductResponse> loadPage(String query, String cursor, int pageSize) {
+        if (query != null && !query.isBlank()) {
+            return searchPage(query, cursor, pageSize, this::loadResponses);
+        }
+        // Fetch one extra row to learn whether another page follows without a count query.
+        Limit limit = Limit.of(pageSize + 1);
+        List<ProductResponse> rows;
+        if (cursor == null) {
+            rows = productRepository.findFirstPage(limit);
+        } else {
+            String[] key = PageCursor.decode(cursor, 2);
+            rows = productRepository.findPageAfter(PageCursor.parseInstant(key[0]), PageCursor.parseLong(key[1]), limit);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    private PageResponse<ProductResponse> loadSnapshotPage(CatalogSnapshot snapshot, String query, String cursor,
+                                                           int pageSize) {
+        if (query != null && !query.isBlank()) {
+            return searchPage(query, cursor, pageSize, snapshot::findAll);
+        }
+        List<ProductResponse> rows;
+        if (cursor == null) {
+            rows = snapshot.pageAfter(null, null, pageSize + 1);
+        } else {
+            String[] key = PageCursor.decode(cursor, 2);
+            rows = snapshot.pageAfter(PageCursor.parseInstant(key[0]), PageCursor.parseLong(key[1]), pageSize + 1);
+        }
+        return toPage(rows, pageSize);
     }
 
     @PostMapping
@@ -54,24 +178,105 @@ public class ProductController {
     public ProductResponse createProduct(@Valid @RequestBody ProductRequest request) {
         Product product = new Product();
         applyRequest(product, request);
-        return toResponse(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductSavedEvent(saved));
+        return toResponse(saved);
     }
 
     @PutMapping("/{id}")
     public ProductResponse updateProduct(@PathVariable Long id, @Valid @RequestBody ProductRequest request) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-        applyRequest(product, request);
-        return toResponse(productRepository.save(product));
+        Product saved = optimisticRetry.executeOnce("product.update", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+            applyRequest(product, request);
+            return productRepository.save(product);
+        });
+        eventPublisher.publishEvent(new ProductSavedEvent(saved));
+        return toResponse(saved);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Transactional
     public void deleteProduct(@PathVariable Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
         }
+        shardedInventory.deleteShards(id);
         productRepository.deleteById(id);
+        // Flushed before the listeners drop the product from memory, so a failing delete leaves them alone.
+        productRepository.flush();
+        eventPublisher.publishEvent(new ProductDeletedEvent(id));
+    }
+
+    private <T> ResponseEntity<T> conditional(WebRequest webRequest, String etag, Instant lastModified,
+                                              Supplier<T> body) {
+        long lastModifiedMillis = lastModified == null ? -1 : lastModified.toEpochMilli();
+        if (webRequest.checkNotModified(etag, lastModifiedMillis)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+    }
+
+    private static long micros(Instant instant) {
+        if (instant == null) {
+            return 0;
+        }
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private PageResponse<ProductResponse> toPage(List<ProductResponse> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductResponse> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ProductResponse last = page.get(page.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new PageResponse<>(page, nextCursor, pageSize);
+    }
+
+    private PageResponse<ProductResponse> searchPage(String query, String cursor, int pageSize,
+                                                     Function<List<Long>, Map<Long, ProductResponse>> loader) {
+        SearchHit after = null;
+        if (cursor != null) {
+            String[] key = PageCursor.decode(cursor, 2);
+            after = new SearchHit(PageCursor.parseLong(key[1]), PageCursor.parseInt(key[0]));
+        }
+        // Hits the loader cannot resolve (inactive or just deleted) are skipped before the page is cut, so a
+        // page comes back short only when the hits run out.
+        List<ProductResponse> items = new ArrayList<>(pageSize);
+        SearchHit last = null;
+        boolean hasMore = false;
+        while (!hasMore) {
+            List<SearchHit> hits = productSearcher.search(query, after, pageSize + 1);
+            Map<Long, ProductResponse> products = loader.apply(hits.stream().map(SearchHit::productId).toList());
+            for (SearchHit hit : hits) {
+                ProductResponse product = products.get(hit.productId());
+                if (product == null) {
+                    continue;
+                }
+                if (items.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                items.add(product);
+                last = hit;
+            }
+            if (hits.size() <= pageSize) {
+                break;
+            }
+            after = hits.get(hits.size() - 1);
+        }
+        String nextCursor = hasMore ? PageCursor.encode(last.score(), last.productId()) : null;
+        return new PageResponse<>(items, nextCursor, pageSize);
+    }
+
+    private Map<Long, ProductResponse> loadResponses(List<Long> ids) {
+        Map<Long, ProductResponse> responses = new HashMap<>();
+        productCache.findAllById(ids).forEach((id, product) -> responses.put(id, ProductResponse.from(product)));
+        shardedInventory.addShardedStock(responses.values());
+        return responses;
     }
 
     private void applyRequest(Product product, ProductRequest request) {
@@ -89,19 +294,8 @@ public class ProductController {
     }
 
     private ProductResponse toResponse(Product product) {
-        ProductResponse response = new ProductResponse();
-        response.setId(product.getId());
-        response.setName(product.getName());
-        response.setDescription(product.getDescription());
-        response.setPrice(product.getPrice());
-        response.setCurrency(product.getCurrency());
-        response.setSku(product.getSku());
-        response.setStockQuantity(product.getStockQuantity());
-        response.setImageUrl(product.getImageUrl());
-        response.setCategory(product.getCategory());
-        response.setActive(product.isActive());
-        response.setCreatedAt(product.getCreatedAt());
-        response.setUpdatedAt(product.getUpdatedAt());
+        ProductResponse response = ProductResponse.from(product);
+        shardedInventory.addShardedStock(List.of(response));
         return response;
     }
 }
@@ -0,0 +1,24 @@
+package com.codeop.store.controller;
+
+import com.codeop.store.retry.OptimisticRetry;
+import com.codeop.store.retry.RetryStats;
+import java.util.Map;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/retries")
+public class RetryAdminController {
+
+    private final OptimisticRetry optimisticRetry;
+
+    public RetryAdminController(OptimisticRetry optimisticRetry) {
+        this.optimisticRetry = optimisticRetry;
+    }
+
+    @GetMapping
+    public Map<String, RetryStats> retryStats() {
+        return optimisticRetry.stats();
+    }
+}
@@ -0,0 +1,53 @@
+package com.codeop.store.dto;
+
+import com.codeop.store.pricing.Money;
+import java.math.BigDecimal;
+
+public class CartBadgeResponse {
+    private Long id;
+    private int itemCount;
+    private BigDecimal total;
+    private String currency;
+
+    public CartBadgeResponse() {
+    }
+
+    public CartBadgeResponse(Long id, int itemCount, long total, String currency) {
+        this.id = id;
+        this.itemCount = itemCount;
+        this.total = Money.toDecimal(total);
+        this.currency = currency;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,51 @@
+package com.codeop.store.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class CartItemOperation {
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    @NotNull
+    private Type op;
+    private Long productId;
+    private Long itemId;
+    @Min(1)
+    private Integer quantity;
+
+    public Type getOp() {
+        return op;
+    }
+
+    public void setOp(Type op) {
+        this.op = op;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,21 @@
+package com.codeop.store.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class CartPatchRequest {
+    @NotEmpty
+    @Size(max = 200)
+    @Valid
+    private List<CartItemOperation> operations;
+
+    public List<CartItemOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<CartItemOperation> operations) {
+        this.operations = operations;
+    }
+}
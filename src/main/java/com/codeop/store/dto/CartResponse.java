@@ -6,6 +6,7 @@ import java.util.List;
 public class CartResponse {
     private Long id;
     private List<CartItemResponse> items;
+    private int itemCount;
     private BigDecimal total;
     private String currency;
 
@@ -25,6 +26,14 @@ public class CartResponse {
         this.items = items;
     }
 
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
     public BigDecimal getTotal() {
         return total;
     }
@@ -0,0 +1,26 @@
+package com.codeop.store.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class CheckoutRequest {
+    @NotBlank
+    private String customerName;
+    @NotBlank
+    private String customerEmail;
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+}
@@ -0,0 +1,43 @@
+package com.codeop.store.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResult {
+    private long received;
+    private long upserted;
+    private long failed;
+    private List<ImportRowError> errors = new ArrayList<>();
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getUpserted() {
+        return upserted;
+    }
+
+    public void setUpserted(long upserted) {
+        this.upserted = upserted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<ImportRowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportRowError> errors) {
+        this.errors = errors;
+    }
+}
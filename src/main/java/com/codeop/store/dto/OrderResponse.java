@@ -1,6 +1,7 @@
 package com.codeop.store.dto;
 
 import com.codeop.store.model.OrderStatus;
+import com.codeop.store.pricing.Money;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
@@ -16,6 +17,21 @@ public class OrderResponse {
     private Instant createdAt;
     private Instant updatedAt;
 
+    public OrderResponse() {
+    }
+
+    public OrderResponse(Long id, String customerName, String customerEmail, OrderStatus status,
+                         long totalAmount, String currency, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.status = status;
+        this.totalAmount = Money.toDecimal(totalAmount);
+        this.currency = currency;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,42 @@
+package com.codeop.store.dto;
+
+import java.util.List;
+
+public class PageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+    private int size;
+
+    public PageResponse() {
+    }
+
+    public PageResponse(List<T> items, String nextCursor, int size) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -14,6 +14,21 @@ public class PaymentResponse {
     private PaymentStatus status;
     private Instant createdAt;
 
+    public PaymentResponse() {
+    }
+
+    public PaymentResponse(Long id, Long orderId, String provider, String providerReference, BigDecimal amount,
+                           String currency, PaymentStatus status, Instant createdAt) {
+        this.id = id;
+        this.orderId = orderId;
+        this.provider = provider;
+        this.providerReference = providerReference;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
     public Long getId() {
         return id;
     }
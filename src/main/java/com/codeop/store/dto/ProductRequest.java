@@ -3,20 +3,27 @@ package com.codeop.store.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 
 public class ProductRequest {
     @NotBlank
+    @Size(max = 255)
     private String name;
+    @Size(max = 2000)
     private String description;
     @NotNull
     @DecimalMin("0.01")
     private BigDecimal price;
     @NotBlank
+    @Size(max = 3)
     private String currency;
+    @Size(max = 64)
     private String sku;
     private Integer stockQuantity;
+    @Size(max = 255)
     private String imageUrl;
+    @Size(max = 255)
     private String category;
     private Boolean active;
 
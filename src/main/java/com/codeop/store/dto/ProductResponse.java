@@ -1,5 +1,6 @@
 package com.codeop.store.dto;
 
+import com.codeop.store.model.Product;
 import java.math.BigDecimal;
 import java.time.Instant;
 
@@ -17,6 +18,43 @@ public class ProductResponse {
     private Instant createdAt;
     private Instant updatedAt;
 
+    public ProductResponse() {
+    }
+
+    public ProductResponse(Long id, String name, String description, BigDecimal price, String currency, String sku,
+                           Integer stockQuantity, String imageUrl, String category, boolean active,
+                           Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.currency = currency;
+        this.sku = sku;
+        this.stockQuantity = stockQuantity;
+        this.imageUrl = imageUrl;
+        this.category = category;
+        this.active = active;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static ProductResponse from(Product product) {
+        ProductResponse response = new ProductResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setDescription(product.getDescription());
+        response.setPrice(product.getPrice());
+        response.setCurrency(product.getCurrency());
+        response.setSku(product.getSku());
+        response.setStockQuantity(product.getStockQuantity());
+        response.setImageUrl(product.getImageUrl());
+        response.setCategory(product.getCategory());
+        response.setActive(product.isActive());
+        response.setCreatedAt(product.getCreatedAt());
+        response.setUpdatedAt(product.getUpdatedAt());
+        return response;
+    }
+
     public Long getId() {
         return id;
     }
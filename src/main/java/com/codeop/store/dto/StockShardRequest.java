@@ -0,0 +1,20 @@
+package com.codeop.store.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class StockShardRequest {
+    @NotNull
+    @Min(0)
+    @Max(64)
+    private Integer shards;
+
+    public Integer getShards() {
+        return shards;
+    }
+
+    public void setShards(Integer shards) {
+        this.shards = shards;
+    }
+}
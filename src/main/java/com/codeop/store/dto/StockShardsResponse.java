@@ -0,0 +1,33 @@
+package com.codeop.store.dto;
+
+import java.util.List;
+
+public class StockShardsResponse {
+    private Long productId;
+    private Integer stockQuantity;
+    private List<Integer> shards;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public List<Integer> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Integer> shards) {
+        this.shards = shards;
+    }
+}
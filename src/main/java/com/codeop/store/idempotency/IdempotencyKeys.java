@@ -0,0 +1,181 @@
+package com.codeop.store.idempotency;
+
+import com.codeop.store.model.IdempotencyRecord;
+import com.codeop.store.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Makes POST handlers safe to retry. The first request with a given {@code Idempotency-Key} runs the handler and
+ * records its response in the same transaction; later requests with that key get the recorded response without
+ * running anything, and a duplicate arriving while the first is still running waits for it. Recorded responses
+ * sit in a bounded in-memory cache in front of the {@code idempotency_keys} table, which is trimmed to
+ * {@code app.idempotency.ttl}. Keys are scoped per endpoint and per user, and only successful responses are kept,
+ * so a request that failed can be retried with the same key.
+ */
+@Component
+public class IdempotencyKeys {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Cache<String, Recorded> recorded;
+    private final Map<String, CompletableFuture<Recorded>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyKeys(IdempotencyRecordRepository repository,
+                           TransactionTemplate transactionTemplate,
+                           JsonMapper jsonMapper,
+                           @Value("${app.idempotency.ttl}") Duration ttl,
+                           @Value("${app.idempotency.cache-size}") long cacheSize,
+                           @Value("${app.idempotency.wait-timeout}") Duration waitTimeout) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.recorded = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} in a transaction, or replays the response recorded for {@code key}. Without a key the
+     * action simply runs.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return transactionTemplate.execute(status -> action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + principal() + ":" + key;
+        String requestHash = hash(request);
+        while (true) {
+            Recorded done = recorded.getIfPresent(id);
+            if (done != null) {
+                return replay(done, requestHash, responseType);
+            }
+            CompletableFuture<Recorded> mine = new CompletableFuture<>();
+            CompletableFuture<Recorded> running = inFlight.putIfAbsent(id, mine);
+            if (running != null) {
+                // A failed first attempt completes with null; the loop then lets this request take its place.
+                done = await(running);
+                if (done != null) {
+                    return replay(done, requestHash, responseType);
+                }
+                continue;
+            }
+            try {
+                done = run(id, requestHash, responseType, action);
+                recorded.put(id, done);
+                mine.complete(done);
+                return replay(done, requestHash, responseType);
+            } catch (RuntimeException ex) {
+                mine.complete(null);
+                throw ex;
+            } finally {
+                inFlight.remove(id, mine);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval}",
+            initialDelayString = "${app.idempotency.cleanup-interval}")
+    @Transactional
+    public void deleteExpired() {
+        repository.deleteCreatedBefore(Instant.now().minus(ttl));
+    }
+
+    private <T> Recorded run(String id, String requestHash, Class<T> responseType, Supplier<T> action) {
+        Optional<IdempotencyRecord> existing = repository.findById(id);
+        if (existing.isPresent()) {
+            return fromRecord(existing.get(), responseType);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                T response = action.get();
+                repository.insert(id, requestHash, jsonMapper.writeValueAsString(response), Instant.now());
+                return new Recorded(requestHash, response);
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance committed this key first; this attempt was rolled back and its response wins.
+            return repository.findById(id)
+                    .map(record -> fromRecord(record, responseType))
+                    .orElseThrow(() -> ex);
+        }
+    }
+
+    private Recorded fromRecord(IdempotencyRecord record, Class<?> responseType) {
+        return new Recorded(record.getRequestHash(), jsonMapper.readValue(record.getResponse(), responseType));
+    }
+
+    private <T> T replay(Recorded done, String requestHash, Class<T> responseType) {
+        if (!done.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "Idempotency-Key was already used with a different request");
+        }
+        return responseType.cast(done.response());
+    }
+
+    private Recorded await(CompletableFuture<Recorded> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        } catch (ExecutionException ex) {
+            return null;
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jsonMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    private record Recorded(String requestHash, Object response) {
+    }
+}
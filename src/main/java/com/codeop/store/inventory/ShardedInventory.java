@@ -0,0 +1,283 @@
+package com.codeop.store.inventory;
+
+import com.codeop.store.catalog.ProductSavedEvent;
+import com.codeop.store.dto.ProductResponse;
+import com.codeop.store.model.Product;
+import com.codeop.store.model.StockShard;
+import com.codeop.store.repository.ProductRepository;
+import com.codeop.store.repository.ShardCountView;
+import com.codeop.store.repository.ShardStockView;
+import com.codeop.store.repository.StockShardRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Optional per-product split of stock across {@code product_stock_shards} rows. Checkouts on a hot product
+ * decrement a randomly chosen shard instead of queueing on the single products row; the products row keeps
+ * only stock that has not been moved into shards yet, and a background pass evens the shards out again.
+ * Shard writes never touch the products row; each shard keeps its own updated_at, which stock responses and
+ * catalog versions take as the product's last change when it is later than the row's.
+ * Shard counts are cached per instance and re-read from the database whenever the cached answer would send an
+ * order down the wrong path, so a split made on another node is picked up before the next rebalance.
+ */
+@Component
+public class ShardedInventory {
+
+    private final StockShardRepository stockShardRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    public ShardedInventory(StockShardRepository stockShardRepository,
+                            ProductRepository productRepository,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.stockShardRepository = stockShardRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadShardCounts() {
+        Map<Long, Integer> fresh = new ConcurrentHashMap<>();
+        for (ShardCountView view : stockShardRepository.countShardsByProduct()) {
+            fresh.put(view.getProductId(), view.getShards().intValue());
+        }
+        shardCounts.keySet().retainAll(fresh.keySet());
+        shardCounts.putAll(fresh);
+    }
+
+    public List<StockShard> shards(Long productId) {
+        return stockShardRepository.findByProductIdOrderByShard(productId);
+    }
+
+    /**
+     * Adds the stock held in shards to each response's stock quantity, and moves its updatedAt to the latest
+     * shard write, with one grouped query for all of them. Projection queries already include both; this is for
+     * responses built from a {@link Product} entity.
+     */
+    public void addShardedStock(Collection<ProductResponse> responses) {
+        List<Long> ids = responses.stream()
+                .filter(response -> response.getStockQuantity() != null)
+                .map(ProductResponse::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, ShardStockView> sharded = new HashMap<>();
+        for (ShardStockView view : stockShardRepository.sumQuantityByProductIds(ids)) {
+            sharded.put(view.getProductId(), view);
+        }
+        for (ProductResponse response : responses) {
+            ShardStockView inShards = sharded.get(response.getId());
+            if (inShards == null || response.getStockQuantity() == null) {
+                continue;
+            }
+            response.setStockQuantity(response.getStockQuantity() + inShards.getQuantity().intValue());
+            if (inShards.getUpdatedAt() != null && inShards.getUpdatedAt().isAfter(response.getUpdatedAt())) {
+                response.setUpdatedAt(inShards.getUpdatedAt());
+            }
+        }
+    }
+
+    /**
+     * Takes {@code quantity} of a product's stock: from the products row when it is not sharded, otherwise from
+     * one shard, starting at a random one so concurrent checkouts spread over the rows, and draining several
+     * shards, locked in shard order, when no free shard holds enough. Products without tracked stock always
+     * succeed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(Long productId, int quantity, Instant now) {
+        int shards = shardCounts.getOrDefault(productId, 0);
+        if (shards <= 1) {
+            if (productRepository.reserveStock(productId, quantity, now) == 1) {
+                return true;
+            }
+            // A sharded product keeps nothing on its row; it may have been split elsewhere since the last load.
+            shards = reloadShardCount(productId);
+            if (shards <= 1) {
+                return false;
+            }
+        }
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            if (stockShardRepository.take(productId, (start + i) % shards, quantity, now) == 1) {
+                return true;
+            }
+        }
+        List<StockShard> locked = stockShardRepository.findForUpdate(productId);
+        if (locked.isEmpty()) {
+            // Folded back into the products row while we were looking.
+            shardCounts.remove(productId);
+            return productRepository.reserveStock(productId, quantity, now) == 1;
+        }
+        if (locked.stream().mapToInt(StockShard::getQuantity).sum() < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (StockShard shard : locked) {
+            int taken = Math.min(remaining, shard.getQuantity());
+            shard.setQuantity(shard.getQuantity() - taken);
+            remaining -= taken;
+        }
+        return true;
+    }
+
+    // Releases are rare, so the shard count is always confirmed: stock given back to the products row of a
+    // sharded product would later be taken for an absolute figure by the fold.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long productId, int quantity, Instant now) {
+        int shards = reloadShardCount(productId);
+        if (shards <= 1 || stockShardRepository.give(productId, ThreadLocalRandom.current().nextInt(shards),
+                quantity, now) == 0) {
+            productRepository.releaseStock(productId, quantity, now);
+        }
+    }
+
+    private int reloadShardCount(Long productId) {
+        int shards = (int) stockShardRepository.countByProductId(productId);
+        if (shards > 1) {
+            shardCounts.put(productId, shards);
+        } else {
+            shardCounts.remove(productId);
+        }
+        return shards;
+    }
+
+    // Shard rows reference the product without a cascade, so they go first, in the deleting transaction.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteShards(Long productId) {
+        stockShardRepository.deleteByProductId(productId);
+        shardCounts.remove(productId);
+    }
+
+    /**
+     * Spreads the product's whole stock evenly over {@code shards} rows; zero or one shard folds everything
+     * back into the products row.
+     */
+    @Transactional
+    public void split(Long productId, int shards) {
+        Product product = productRepository.findForUpdate(productId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        if (product.getStockQuantity() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product stock is not tracked");
+        }
+        int total = product.getStockQuantity() + stockShardRepository.findForUpdate(productId).stream()
+                .mapToInt(StockShard::getQuantity).sum();
+        spread(product, total, shards);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+    }
+
+    private void spread(Product product, int total, int shards) {
+        Long productId = product.getId();
+        stockShardRepository.deleteByProductId(productId);
+        stockShardRepository.flush();
+        if (shards <= 1) {
+            product.setStockQuantity(total);
+            shardCounts.remove(productId);
+        } else {
+            product.setStockQuantity(0);
+            List<StockShard> rows = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                StockShard shard = new StockShard();
+                shard.setProduct(product);
+                shard.setShard(i);
+                shard.setQuantity(total / shards + (i < total % shards ? 1 : 0));
+                rows.add(shard);
+            }
+            stockShardRepository.saveAll(rows);
+            shardCounts.put(productId, shards);
+        }
+    }
+
+    // An admin edit of a sharded product sets its total stock, so the new value is re-spread over the shards
+    // before the other listeners build responses from the saved product.
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductSaved(ProductSavedEvent event) {
+        Product product = event.product();
+        int shards = reloadShardCount(product.getId());
+        if (shards <= 1) {
+            return;
+        }
+        Integer total = product.getStockQuantity();
+        transactionTemplate.executeWithoutResult(status -> {
+            stockShardRepository.deleteByProductId(product.getId());
+            if (total != null) {
+                split(product.getId(), shards);
+            }
+        });
+        if (total == null) {
+            shardCounts.remove(product.getId());
+        } else {
+            product.setStockQuantity(0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.rebalance-interval}",
+            initialDelayString = "${app.inventory.rebalance-interval}")
+    public void rebalance() {
+        loadShardCounts();
+        // Separate transactions, so the products row and the shard rows are never locked together by this pass.
+        for (Long productId : shardCounts.keySet()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> foldUnsharded(productId)))
+                    || Boolean.TRUE.equals(transactionTemplate.execute(status -> rebalance(productId)))) {
+                eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+            }
+        }
+    }
+
+    // Stock written to the products row directly (an import, for example) is an absolute figure, like an admin
+    // edit, so it replaces what the shards hold rather than adding to it. Locks the products row, then the
+    // shards, in the same order as split.
+    private boolean foldUnsharded(Long productId) {
+        Product product = productRepository.findForUpdate(productId).orElse(null);
+        if (product == null || product.getStockQuantity() == null || product.getStockQuantity() == 0) {
+            return false;
+        }
+        List<StockShard> locked = stockShardRepository.findForUpdate(productId);
+        if (locked.size() <= 1) {
+            return false;
+        }
+        spread(product, product.getStockQuantity(), locked.size());
+        return true;
+    }
+
+    private boolean rebalance(Long productId) {
+        List<StockShard> locked = stockShardRepository.findForUpdate(productId);
+        if (locked.isEmpty()) {
+            return false;
+        }
+        int total = locked.stream().mapToInt(StockShard::getQuantity).sum();
+        int min = locked.stream().mapToInt(StockShard::getQuantity).min().getAsInt();
+        int max = locked.stream().mapToInt(StockShard::getQuantity).max().getAsInt();
+        if (max - min <= 1) {
+            return false;
+        }
+        for (int i = 0; i < locked.size(); i++) {
+            locked.get(i).setQuantity(total / locked.size() + (i < total % locked.size() ? 1 : 0));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,6 @@
+package com.codeop.store.inventory;
+
+import java.util.Collection;
+
+public record StockChangedEvent(Collection<Long> productIds) {
+}
@@ -0,0 +1,140 @@
+package com.codeop.store.inventory;
+
+import com.codeop.store.repository.OrderItemRepository;
+import com.codeop.store.repository.OrderItemView;
+import com.codeop.store.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Holds stock for unpaid orders. Each line is a single conditional decrement, so there is no read-modify-write
+ * window to oversell through; products are always locked in id order, and callers reserve as the last step of
+ * their transaction so the row locks are held only until commit.
+ */
+@Component
+public class StockReservations {
+
+    private static final int EXPIRY_BATCH = 100;
+
+    private final ShardedInventory shardedInventory;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration reservationTtl;
+
+    public StockReservations(ShardedInventory shardedInventory,
+                             OrderRepository orderRepository,
+                             OrderItemRepository orderItemRepository,
+                             TransactionTemplate transactionTemplate,
+                             JdbcTemplate jdbcTemplate,
+                             EntityManager entityManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.inventory.reservation-ttl}") Duration reservationTtl) {
+        this.shardedInventory = shardedInventory;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.reservationTtl = reservationTtl;
+    }
+
+    /**
+     * Takes {@code quantities} (product id to units) out of stock and returns the instant the hold expires.
+     * Products without a tracked stock quantity always succeed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Instant reserve(Map<Long, Integer> quantities) {
+        Instant now = Instant.now();
+        SortedMap<Long, Integer> ordered = new TreeMap<>(quantities);
+        for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+            if (!shardedInventory.reserve(line.getKey(), line.getValue(), now)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Insufficient stock for product " + line.getKey());
+            }
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(ordered.keySet()));
+        return now.plus(reservationTtl);
+    }
+
+    /**
+     * Like {@link #reserve}, but for callers that carry on when stock runs out: the lines already taken are
+     * rolled back to a savepoint and null is returned, leaving the surrounding transaction usable. The
+     * persistence context is cleared in that case, since the savepoint does not undo entities changed in memory.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Instant tryReserve(Map<Long, Integer> quantities) {
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        try {
+            Instant reservedUntil = reserve(quantities);
+            entityManager.flush();
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.releaseSavepoint(savepoint);
+                return null;
+            });
+            return reservedUntil;
+        } catch (ResponseStatusException ex) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+            entityManager.clear();
+            return null;
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        Instant now = Instant.now();
+        SortedMap<Long, Integer> ordered = new TreeMap<>(quantities);
+        ordered.forEach((productId, quantity) -> shardedInventory.release(productId, quantity, now));
+        eventPublisher.publishEvent(new StockChangedEvent(ordered.keySet()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.expiry-interval}",
+            initialDelayString = "${app.inventory.expiry-interval}")
+    public void releaseExpired() {
+        List<Long> expired;
+        do {
+            expired = orderRepository.findExpiredReservations(Instant.now(), Limit.of(EXPIRY_BATCH));
+            for (Long orderId : expired) {
+                transactionTemplate.executeWithoutResult(status -> cancel(orderId));
+            }
+        } while (expired.size() == EXPIRY_BATCH);
+    }
+
+    private void cancel(Long orderId) {
+        // The status guard makes this lose cleanly against a payment that lands at the same moment.
+        if (orderRepository.cancelReservation(orderId, Instant.now()) == 0) {
+            return;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemView item : orderItemRepository.findViewsByOrderIds(List.of(orderId))) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        release(quantities);
+    }
+}
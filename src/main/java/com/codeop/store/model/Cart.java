@@ -1,21 +1,33 @@
 package com.codeop.store.model;
 
+import com.codeop.store.pricing.MinorUnitsConverter;
+import com.codeop.store.pricing.Money;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.MapKey;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = @Index(name = "idx_carts_updated_at", columnList = "updated_at"))
 public class Cart {
 
     @Id
@@ -23,7 +35,29 @@ public class Cart {
     private Long id;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<CartItem> items = new ArrayList<>();
+    @MapKey(name = "productId")
+    @OrderBy("id")
+    private Map<Long, CartItem> items = new LinkedHashMap<>();
+
+    @Transient
+    private Map<Long, CartItem> itemsById;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int itemCount;
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @ColumnDefault("0")
+    @Column(nullable = false, precision = 12, scale = 2)
+    private long subtotal;
+
+    @Column(length = 3)
+    private String currency;
 
     @Column(nullable = false)
     private Instant createdAt;
@@ -44,21 +78,76 @@ public class Cart {
     }
 
     public void addItem(CartItem item) {
-        items.add(item);
+        items.put(item.getProductId(), item);
         item.setCart(this);
+        itemsById = null;
+        itemCount += item.getQuantity();
+        subtotal = Math.addExact(subtotal, Money.times(item.getUnitPrice(), item.getQuantity()));
+        if (currency == null) {
+            currency = item.getProduct().getCurrency();
+        }
+        touch();
     }
 
     public void removeItem(CartItem item) {
-        items.remove(item);
+        items.remove(item.getProductId());
         item.setCart(null);
+        itemsById = null;
+        itemCount -= item.getQuantity();
+        subtotal = Math.subtractExact(subtotal, Money.times(item.getUnitPrice(), item.getQuantity()));
+        if (items.isEmpty()) {
+            currency = null;
+        }
+        touch();
+    }
+
+    public void changeQuantity(CartItem item, int quantity) {
+        int delta = quantity - item.getQuantity();
+        itemCount += delta;
+        subtotal = Math.addExact(subtotal, Money.times(item.getUnitPrice(), delta));
+        item.setQuantity(quantity);
+        touch();
+    }
+
+    public Optional<CartItem> findItemByProductId(Long productId) {
+        return Optional.ofNullable(items.get(productId));
+    }
+
+    public Optional<CartItem> findItem(Long itemId) {
+        if (itemsById == null) {
+            itemsById = new HashMap<>();
+            items.values().forEach(item -> itemsById.put(item.getId(), item));
+        }
+        return Optional.ofNullable(itemsById.get(itemId));
+    }
+
+    // Item edits do not dirty the cart row on their own; touching it makes every write bump the cart version.
+    private void touch() {
+        updatedAt = Instant.now();
     }
 
     public Long getId() {
         return id;
     }
 
-    public List<CartItem> getItems() {
-        return items;
+    public Collection<CartItem> getItems() {
+        return items.values();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    public String getCurrency() {
+        return currency;
     }
 
     public Instant getCreatedAt() {
@@ -1,6 +1,8 @@
 package com.codeop.store.model;
 
+import com.codeop.store.pricing.MinorUnitsConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -8,7 +10,6 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "cart_items")
@@ -26,16 +27,25 @@ public class CartItem {
     @JoinColumn(name = "product_id")
     private Product product;
 
+    // Read-only view of the join column; Cart keys its items by it.
+    @Column(name = "product_id", insertable = false, updatable = false)
+    private Long productId;
+
     @Column(nullable = false)
     private Integer quantity;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    private long unitPrice;
 
     public Long getId() {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public Cart getCart() {
         return cart;
     }
@@ -50,6 +60,11 @@ public class CartItem {
 
     public void setProduct(Product product) {
         this.product = product;
+        this.productId = product == null ? null : product.getId();
+    }
+
+    public Long getProductId() {
+        return productId;
     }
 
     public Integer getQuantity() {
@@ -60,11 +75,11 @@ public class CartItem {
         this.quantity = quantity;
     }
 
-    public BigDecimal getUnitPrice() {
+    public long getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(BigDecimal unitPrice) {
+    public void setUnitPrice(long unitPrice) {
         this.unitPrice = unitPrice;
     }
 }
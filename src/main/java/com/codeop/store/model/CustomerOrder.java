@@ -1,24 +1,33 @@
 package com.codeop.store.model;
 
+import com.codeop.store.pricing.MinorUnitsConverter;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
+import jakarta.persistence.Version;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_reserved_until", columnList = "reserved_until"),
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_email_created_at_id", columnList = "customer_email, created_at, id")
+})
 public class CustomerOrder {
 
     @Id
@@ -35,15 +44,23 @@ public class CustomerOrder {
     @Column(nullable = false)
     private OrderStatus status = OrderStatus.NEW;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private long totalAmount;
 
     @Column(nullable = false, length = 3)
     private String currency = "USD";
 
+    private Instant reservedUntil;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> items = new ArrayList<>();
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @Column(nullable = false)
     private Instant createdAt;
 
@@ -62,6 +79,14 @@ public class CustomerOrder {
         updatedAt = Instant.now();
     }
 
+    // Orders taken by the async intake get their id and timestamps before their row is written.
+    public void receive(Long id, Instant receivedAt) {
+        this.id = id;
+        this.status = OrderStatus.RECEIVED;
+        this.createdAt = receivedAt;
+        this.updatedAt = receivedAt;
+    }
+
     public void addItem(OrderItem item) {
         items.add(item);
         item.setOrder(this);
@@ -104,11 +129,11 @@ public class CustomerOrder {
         this.status = status;
     }
 
-    public BigDecimal getTotalAmount() {
+    public long getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(long totalAmount) {
         this.totalAmount = totalAmount;
     }
 
@@ -120,6 +145,14 @@ public class CustomerOrder {
         this.currency = currency;
     }
 
+    public Instant getReservedUntil() {
+        return reservedUntil;
+    }
+
+    public void setReservedUntil(Instant reservedUntil) {
+        this.reservedUntil = reservedUntil;
+    }
+
     public List<OrderItem> getItems() {
         return items;
     }
@@ -128,6 +161,10 @@ public class CustomerOrder {
         this.items = items;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
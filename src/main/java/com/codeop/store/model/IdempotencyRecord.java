@@ -0,0 +1,42 @@
+package com.codeop.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 400)
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -1,6 +1,8 @@
 package com.codeop.store.model;
 
+import com.codeop.store.pricing.MinorUnitsConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -8,7 +10,6 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "order_items")
@@ -29,8 +30,9 @@ public class OrderItem {
     @Column(nullable = false)
     private Integer quantity;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    private long unitPrice;
 
     public Long getId() {
         return id;
@@ -64,11 +66,11 @@ public class OrderItem {
         this.quantity = quantity;
     }
 
-    public BigDecimal getUnitPrice() {
+    public long getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(BigDecimal unitPrice) {
+    public void setUnitPrice(long unitPrice) {
         this.unitPrice = unitPrice;
     }
 }
@@ -1,8 +1,12 @@
 package com.codeop.store.model;
 
 public enum OrderStatus {
+    // Accepted by the async intake and not written yet; only ever reported, never stored.
+    RECEIVED,
     NEW,
     PAID,
     SHIPPED,
-    CANCELLED
+    CANCELLED,
+    // Stored by the async intake for an order whose rows could not be written; it holds no items or stock.
+    FAILED
 }
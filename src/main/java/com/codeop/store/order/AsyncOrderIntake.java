@@ -0,0 +1,379 @@
+package com.codeop.store.order;
+
+import com.codeop.store.config.LifecyclePhases;
+import com.codeop.store.inventory.StockReservations;
+import com.codeop.store.model.CustomerOrder;
+import com.codeop.store.model.OrderItem;
+import com.codeop.store.model.OrderStatus;
+import com.codeop.store.model.Product;
+import com.codeop.store.pricing.Money;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Takes priced orders into a bounded in-process queue and writes them from a few virtual-thread workers. Each
+ * batch is one transaction: stock is reserved per order under a savepoint, so an order that cannot be filled is
+ * stored as cancelled without failing its neighbours, then all orders and items go in as JDBC batches. Ids are
+ * drawn from the orders identity sequence in blocks, so an order has its id the moment it is accepted; until it
+ * is written it can be found here with status {@link OrderStatus#RECEIVED}.
+ * <p>
+ * Transient database errors are retried with backoff. Any other failure is in the data, so the batch is written
+ * again one order at a time; an order that still fails alone is stored as {@link OrderStatus#FAILED} with its
+ * content in {@code order_intake_failures}. Orders still unwritten when shutdown runs out of time are kept in
+ * {@code app.orders.intake-journal-path} and queued again on the next start.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.orders", name = "intake", havingValue = "async")
+public class AsyncOrderIntake implements SmartLifecycle {
+
+    private static final String NEXT_IDS =
+            "select nextval(pg_get_serial_sequence('orders', 'id')) from generate_series(1, ?)";
+    private static final String INSERT_ORDER = """
+            insert into orders (id, customer_name, customer_email, status, total_amount, currency, reserved_until,
+                created_at, updated_at, version)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)""";
+    private static final String INSERT_ORDER_ITEM =
+            "insert into order_items (order_id, product_id, quantity, unit_price) values (?, ?, ?, ?)";
+    private static final String INSERT_FAILURE =
+            "insert into order_intake_failures (order_id, payload, error, failed_at) values (?, ?, ?, ?)";
+    // The status check Hibernate generated predates FAILED, so it is rebuilt from the enum.
+    private static final List<String> SCHEMA = List.of(
+            """
+            CREATE TABLE IF NOT EXISTS order_intake_failures (
+                order_id bigint PRIMARY KEY,
+                payload text NOT NULL,
+                error text,
+                failed_at timestamp(6) with time zone NOT NULL
+            )""",
+            "ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check",
+            "ALTER TABLE orders ADD CONSTRAINT orders_status_check CHECK (status IN ("
+                    + Arrays.stream(OrderStatus.values()).map(status -> "'" + status.name() + "'")
+                    .collect(Collectors.joining(", ")) + "))");
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration STOP_GRACE = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockReservations stockReservations;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final int idBlockSize;
+    private final IntakeJournal journal;
+
+    private final BlockingQueue<CustomerOrder> queue = new LinkedBlockingQueue<>();
+    // Accepted and not written yet, whether still waiting for the caller's commit, queued or in a batch.
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Map<Long, CustomerOrder> received = new ConcurrentHashMap<>();
+    private final Queue<CustomerOrder> unwritten = new ConcurrentLinkedQueue<>();
+    private final Deque<Long> ids = new ArrayDeque<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile long stopDeadline;
+
+    public AsyncOrderIntake(JdbcTemplate jdbcTemplate,
+                            StockReservations stockReservations,
+                            TransactionTemplate transactionTemplate,
+                            JsonMapper jsonMapper,
+                            @Value("${app.orders.intake-capacity}") int capacity,
+                            @Value("${app.orders.intake-workers}") int workers,
+                            @Value("${app.orders.intake-batch-size}") int batchSize,
+                            @Value("${app.orders.id-block-size}") int idBlockSize,
+                            @Value("${app.orders.intake-journal-path}") Path journalPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockReservations = stockReservations;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.capacity = capacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.idBlockSize = idBlockSize;
+        this.journal = new IntakeJournal(journalPath);
+    }
+
+    /**
+     * Accepts a priced, unsaved order and returns it with its id, or answers 503 when the intake is full. Inside
+     * a transaction the order is only queued once that transaction commits, so an order whose request rolls
+     * back, for example on a failed idempotency record, is never written and a retry cannot write it twice.
+     */
+    public CustomerOrder submit(CustomerOrder order) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Order intake is not running");
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Order intake is full, retry later");
+        }
+        order.receive(nextId(), Instant.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(order);
+            return order;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enqueue(order);
+                } else {
+                    pending.decrementAndGet();
+                }
+            }
+        });
+        return order;
+    }
+
+    public Optional<CustomerOrder> find(Long orderId) {
+        return Optional.ofNullable(received.get(orderId));
+    }
+
+    @Override
+    public void start() {
+        transactionTemplate.executeWithoutResult(status -> SCHEMA.forEach(jdbcTemplate::execute));
+        for (String record : journal.load()) {
+            CustomerOrder order = jsonMapper.readValue(record, QueuedOrder.class).toOrder();
+            pending.incrementAndGet();
+            enqueue(order);
+        }
+        journal.clear();
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            threads.add(Thread.ofVirtual().name("order-intake-" + i).start(this::work));
+        }
+    }
+
+    // Stops taking orders and lets the workers drain the queue; whatever is still unwritten when time runs out
+    // goes to the journal.
+    @Override
+    public void stop() {
+        stopDeadline = System.nanoTime() + STOP_TIMEOUT.toNanos();
+        running = false;
+        long joinDeadline = stopDeadline + STOP_GRACE.toNanos();
+        for (Thread thread : threads) {
+            try {
+                thread.join(Duration.ofNanos(Math.max(0, joinDeadline - System.nanoTime())));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+        List<CustomerOrder> left = new ArrayList<>(unwritten);
+        queue.drainTo(left);
+        unwritten.clear();
+        if (!left.isEmpty()) {
+            journal.save(left.stream().map(order -> jsonMapper.writeValueAsString(QueuedOrder.of(order))).toList());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return LifecyclePhases.BEFORE_WEB_SERVER;
+    }
+
+    private void enqueue(CustomerOrder order) {
+        received.put(order.getId(), order);
+        queue.add(order);
+    }
+
+    private synchronized Long nextId() {
+        if (ids.isEmpty()) {
+            ids.addAll(jdbcTemplate.queryForList(NEXT_IDS, Long.class, idBlockSize));
+        }
+        return ids.poll();
+    }
+
+    private void work() {
+        List<CustomerOrder> batch = new ArrayList<>(batchSize);
+        try {
+            while ((running || !queue.isEmpty()) && !stopExpired()) {
+                CustomerOrder first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                List<CustomerOrder> left = writeUntilDone(batch);
+                unwritten.addAll(left);
+                finish(batch, left);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            unwritten.addAll(batch);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finish(List<CustomerOrder> batch, List<CustomerOrder> left) {
+        for (CustomerOrder order : batch) {
+            // An order that could not even be stored as failed stays here so its status can still be read.
+            if (!left.contains(order) && order.getStatus() != OrderStatus.FAILED) {
+                received.remove(order.getId());
+            }
+        }
+        pending.addAndGet(left.size() - batch.size());
+    }
+
+    // Returns the orders that are still unwritten because shutdown ran out of time.
+    private List<CustomerOrder> writeUntilDone(List<CustomerOrder> batch) throws InterruptedException {
+        try {
+            return retryTransient(() -> write(batch)) ? List.of() : batch;
+        } catch (RuntimeException ex) {
+            if (batch.size() > 1) {
+                // One bad order fails the whole batch; on their own the others go through.
+                List<CustomerOrder> left = new ArrayList<>();
+                for (CustomerOrder order : batch) {
+                    left.addAll(left.isEmpty() ? writeUntilDone(List.of(order)) : List.of(order));
+                }
+                return left;
+            }
+            CustomerOrder order = batch.get(0);
+            try {
+                return retryTransient(() -> deadLetter(order, ex)) ? List.of() : batch;
+            } catch (RuntimeException failed) {
+                order.setStatus(OrderStatus.FAILED);
+                return List.of();
+            }
+        }
+    }
+
+    // False when shutdown runs out of time before the work succeeds; errors that are not transient propagate.
+    private boolean retryTransient(Runnable work) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            try {
+                work.run();
+                return true;
+            } catch (RuntimeException ex) {
+                if (!isTransient(ex)) {
+                    throw ex;
+                }
+            }
+            if (stopExpired()) {
+                return false;
+            }
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF.toMillis());
+        }
+    }
+
+    // Lost connections, lock timeouts and serialization failures clear up by themselves; anything else is in
+    // the data and fails the same way every time.
+    private static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException || ex instanceof TransactionException;
+    }
+
+    private boolean stopExpired() {
+        return !running && System.nanoTime() - stopDeadline > 0;
+    }
+
+    private void write(List<CustomerOrder> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Object[]> orders = new ArrayList<>(batch.size());
+            List<Object[]> items = new ArrayList<>();
+            for (CustomerOrder order : batch) {
+                Map<Long, Integer> quantities = new HashMap<>();
+                for (OrderItem item : order.getItems()) {
+                    quantities.put(item.getProduct().getId(), item.getQuantity());
+                    items.add(new Object[]{order.getId(), item.getProduct().getId(), item.getQuantity(),
+                            Money.toDecimal(item.getUnitPrice())});
+                }
+                Instant reservedUntil = stockReservations.tryReserve(quantities);
+                orders.add(orderRow(order, reservedUntil == null ? OrderStatus.CANCELLED : OrderStatus.NEW,
+                        reservedUntil, now));
+            }
+            jdbcTemplate.batchUpdate(INSERT_ORDER, orders);
+            jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, items);
+        });
+    }
+
+    private void deadLetter(CustomerOrder order, RuntimeException cause) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.update(INSERT_ORDER, orderRow(order, OrderStatus.FAILED, null, now));
+            jdbcTemplate.update(INSERT_FAILURE, order.getId(), jsonMapper.writeValueAsString(QueuedOrder.of(order)),
+                    cause.getMessage(), now);
+        });
+    }
+
+    private static Object[] orderRow(CustomerOrder order, OrderStatus status, Instant reservedUntil, Timestamp now) {
+        return new Object[]{order.getId(), order.getCustomerName(), order.getCustomerEmail(), status.name(),
+                Money.toDecimal(order.getTotalAmount()), order.getCurrency(),
+                reservedUntil == null ? null : Timestamp.from(reservedUntil), Timestamp.from(order.getCreatedAt()), now};
+    }
+
+    // An accepted order as kept in the journal and in order_intake_failures.
+    private record QueuedOrder(Long id, String customerName, String customerEmail, String currency, long totalAmount,
+                               Instant receivedAt, List<QueuedItem> items) {
+
+        static QueuedOrder of(CustomerOrder order) {
+            return new QueuedOrder(order.getId(), order.getCustomerName(), order.getCustomerEmail(),
+                    order.getCurrency(), order.getTotalAmount(), order.getCreatedAt(), order.getItems().stream()
+                    .map(item -> new QueuedItem(item.getProduct().getId(), item.getQuantity(), item.getUnitPrice()))
+                    .toList());
+        }
+
+        CustomerOrder toOrder() {
+            CustomerOrder order = new CustomerOrder();
+            order.setCustomerName(customerName);
+            order.setCustomerEmail(customerEmail);
+            order.setCurrency(currency);
+            order.setTotalAmount(totalAmount);
+            order.receive(id, receivedAt);
+            for (QueuedItem queued : items) {
+                Product product = new Product();
+                product.setId(queued.productId());
+                OrderItem item = new OrderItem();
+                item.setProduct(product);
+                item.setQuantity(queued.quantity());
+                item.setUnitPrice(queued.unitPrice());
+                order.addItem(item);
+            }
+            return order;
+        }
+    }
+
+    private record QueuedItem(Long productId, int quantity, long unitPrice) {
+    }
+}
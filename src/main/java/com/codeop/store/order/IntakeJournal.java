@@ -0,0 +1,51 @@
+package com.codeop.store.order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Orders the intake could not write before shutting down, one record per line. Written once on stop and read
+ * back on the next start.
+ */
+final class IntakeJournal {
+
+    private final Path path;
+    private final Path partial;
+
+    IntakeJournal(Path path) {
+        this.path = path.toAbsolutePath();
+        this.partial = this.path.resolveSibling(this.path.getFileName() + ".partial");
+    }
+
+    void save(List<String> records) {
+        try {
+            Files.createDirectories(path.getParent());
+            // Written aside and moved into place, so a crash mid-write never leaves half a journal behind.
+            Files.write(partial, records, StandardCharsets.UTF_8);
+            Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    List<String> load() {
+        try {
+            return Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : List.of();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    void clear() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
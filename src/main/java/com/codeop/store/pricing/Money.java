@@ -0,0 +1,49 @@
+package com.codeop.store.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a {@code long} count of minor units. Every amount column has scale 2, so a minor unit is always one
+ * hundredth. Cart and order arithmetic stays on primitives; {@link BigDecimal} is only created where amounts
+ * cross the JPA ({@link MinorUnitsConverter}) and JSON boundaries. Currencies travel as a three-letter code
+ * packed into an {@code int}, with {@code 0} meaning none.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final int NO_CURRENCY = 0;
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long times(long unitMinor, int quantity) {
+        return Math.multiplyExact(unitMinor, quantity);
+    }
+
+    public static int currencyCode(String currency) {
+        if (currency == null) {
+            return NO_CURRENCY;
+        }
+        if (currency.length() != 3) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            char letter = Character.toUpperCase(currency.charAt(i));
+            if (letter < 'A' || letter > 'Z') {
+                throw new IllegalArgumentException("Unsupported currency: " + currency);
+            }
+            code = (code << 5) | (letter - 'A' + 1);
+        }
+        return code;
+    }
+}
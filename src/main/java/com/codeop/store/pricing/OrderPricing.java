@@ -0,0 +1,49 @@
+package com.codeop.store.pricing;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Running total of one order's lines, shared by {@code POST /api/orders} and cart checkout so both apply the same
+ * currency check and overflow limits. Problems with the request (an unknown currency code, a product priced in
+ * another currency, a total beyond a {@code long}) are reported as 400.
+ */
+public final class OrderPricing {
+
+    private final int currency;
+    private long total;
+
+    public OrderPricing(String currency) {
+        this.currency = currencyCode(currency);
+    }
+
+    /**
+     * Adds {@code quantity} at {@code unitPrice} minor units and returns the line total. An order or product
+     * without a currency matches any.
+     */
+    public long addLine(String productCurrency, long unitPrice, int quantity) {
+        int lineCurrency = currencyCode(productCurrency);
+        if (lineCurrency != Money.NO_CURRENCY && currency != Money.NO_CURRENCY && lineCurrency != currency) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Currency mismatch for product");
+        }
+        try {
+            long lineTotal = Money.times(unitPrice, quantity);
+            total = Math.addExact(total, lineTotal);
+            return lineTotal;
+        } catch (ArithmeticException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order total too large");
+        }
+    }
+
+    public long total() {
+        return total;
+    }
+
+    private static int currencyCode(String currency) {
+        try {
+            return Money.currencyCode(currency);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+}
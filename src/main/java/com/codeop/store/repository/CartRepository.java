@@ -1,7 +1,59 @@
 package com.codeop.store.repository;
 
+import com.codeop.store.dto.CartBadgeResponse;
 import com.codeop.store.model.Cart;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    @Query("select c from Cart c where c.id = :id")
+    Optional<Cart> findWithItems(@Param("id") Long id);
+
+    @Query("""
+            select new com.codeop.store.dto.CartBadgeResponse(c.id, c.itemCount, c.subtotal, coalesce(c.currency, 'USD'))
+            from Cart c where c.id = :id
+            """)
+    Optional<CartBadgeResponse> findBadge(@Param("id") Long id);
+
+    // Carts written before the totals existed have items but a zero count; computed once in bulk.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            update carts c set item_count = t.item_count, subtotal = t.subtotal, currency = t.currency,
+                version = c.version + 1
+            from (select i.cart_id, sum(i.quantity) as item_count, sum(i.quantity * i.unit_price) as subtotal,
+                    min(p.currency) as currency
+                from cart_items i join products p on p.id = i.product_id
+                group by i.cart_id) t
+            where c.id = t.cart_id and c.item_count = 0
+            """)
+    int backfillTotals();
+
+    // Locked so a cart that is being edited right now is skipped instead of losing its items under the editor.
+    @Query(nativeQuery = true, value = """
+            select id from carts where updated_at < :cutoff
+            order by updated_at limit :limit
+            for update skip locked
+            """)
+    List<Long> lockIdleIds(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from CartItem i where i.cart.id in :cartIds")
+    int deleteItemsByCartIds(@Param("cartIds") Collection<Long> cartIds);
+
+    @Modifying
+    @Query("delete from Cart c where c.id = :id and c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") long version);
+
+    @Modifying
+    @Query("delete from Cart c where c.id in :cartIds")
+    int deleteByIds(@Param("cartIds") Collection<Long> cartIds);
 }
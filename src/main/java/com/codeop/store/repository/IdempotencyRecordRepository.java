@@ -0,0 +1,26 @@
+package com.codeop.store.repository;
+
+import com.codeop.store.model.IdempotencyRecord;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // A plain insert, so a key committed concurrently elsewhere fails on the primary key instead of being merged.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into idempotency_keys (id, request_hash, response, created_at)
+            values (:id, :requestHash, :response, :createdAt)
+            """)
+    void insert(@Param("id") String id,
+                @Param("requestHash") String requestHash,
+                @Param("response") String response,
+                @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,22 @@
+package com.codeop.store.repository;
+
+import com.codeop.store.model.OrderItem;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select i.order.id as orderId, p.id as productId, p.name as productName,
+                   i.quantity as quantity, i.unitPrice as unitPrice
+            from OrderItem i join i.product p
+            where i.order.id in :orderIds
+            order by i.order.id, i.id
+            """)
+    List<OrderItemView> findViewsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -0,0 +1,14 @@
+package com.codeop.store.repository;
+
+
+public interface OrderItemView {
+    Long getOrderId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Integer getQuantity();
+
+    long getUnitPrice();
+}
@@ -0,0 +1,16 @@
+package com.codeop.store.repository;
+
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.model.OrderStatus;
+import java.time.Instant;
+import java.util.List;
+
+public interface OrderPageQueries {
+
+    /**
+     * Newest orders first, keyed on (createdAt, id). Null filters are left out of the query entirely, so each
+     * combination gets a plan that can use its matching index.
+     */
+    List<OrderResponse> findPage(OrderStatus status, String customerEmail, Instant createdFrom, Instant createdTo,
+                                 Instant afterCreatedAt, Long afterId, int limit);
+}
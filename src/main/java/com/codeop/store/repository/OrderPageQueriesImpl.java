@@ -0,0 +1,64 @@
+package com.codeop.store.repository;
+
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.transaction.annotation.Transactional;
+
+public class OrderPageQueriesImpl implements OrderPageQueries {
+
+    private final EntityManager entityManager;
+
+    public OrderPageQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderResponse> findPage(OrderStatus status, String customerEmail, Instant createdFrom,
+                                        Instant createdTo, Instant afterCreatedAt, Long afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (status != null) {
+            conditions.add("o.status = :status");
+            parameters.put("status", status);
+        }
+        if (customerEmail != null) {
+            conditions.add("o.customerEmail = :customerEmail");
+            parameters.put("customerEmail", customerEmail);
+        }
+        if (createdFrom != null) {
+            conditions.add("o.createdAt >= :createdFrom");
+            parameters.put("createdFrom", createdFrom);
+        }
+        if (createdTo != null) {
+            conditions.add("o.createdAt < :createdTo");
+            parameters.put("createdTo", createdTo);
+        }
+        if (afterCreatedAt != null) {
+            conditions.add("(o.createdAt < :afterCreatedAt or (o.createdAt = :afterCreatedAt and o.id < :afterId))");
+            parameters.put("afterCreatedAt", afterCreatedAt);
+            parameters.put("afterId", afterId);
+        }
+
+        StringBuilder jpql = new StringBuilder("""
+                select new com.codeop.store.dto.OrderResponse(o.id, o.customerName, o.customerEmail, o.status,
+                    o.totalAmount, o.currency, o.createdAt, o.updatedAt)
+                from CustomerOrder o
+                """);
+        if (!conditions.isEmpty()) {
+            jpql.append("where ").append(String.join(" and ", conditions)).append('\n');
+        }
+        jpql.append("order by o.createdAt desc, o.id desc");
+
+        TypedQuery<OrderResponse> query = entityManager.createQuery(jpql.toString(), OrderResponse.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
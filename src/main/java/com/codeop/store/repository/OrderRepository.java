@@ -1,7 +1,48 @@
 package com.codeop.store.repository;
 
+import com.codeop.store.dto.OrderResponse;
 import com.codeop.store.model.CustomerOrder;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface OrderRepository extends JpaRepository<CustomerOrder, Long> {
+public interface OrderRepository extends JpaRepository<CustomerOrder, Long>, OrderPageQueries {
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.OrderResponse(o.id, o.customerName, o.customerEmail, o.status,
+                o.totalAmount, o.currency, o.createdAt, o.updatedAt)
+            from CustomerOrder o
+            where o.id = :id
+            """)
+    Optional<OrderResponse> findResponseById(@Param("id") Long id);
+
+    @Query("""
+            select o.id from CustomerOrder o
+            where o.status = com.codeop.store.model.OrderStatus.NEW and o.reservedUntil < :now
+            order by o.reservedUntil
+            """)
+    List<Long> findExpiredReservations(@Param("now") Instant now, Limit limit);
+
+    @Modifying
+    @Query("""
+            update versioned CustomerOrder o
+            set o.status = com.codeop.store.model.OrderStatus.CANCELLED, o.reservedUntil = null, o.updatedAt = :now
+            where o.id = :id and o.status = com.codeop.store.model.OrderStatus.NEW
+            """)
+    int cancelReservation(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update versioned CustomerOrder o
+            set o.status = com.codeop.store.model.OrderStatus.PAID, o.reservedUntil = null, o.updatedAt = :now
+            where o.id = :id and o.status <> com.codeop.store.model.OrderStatus.CANCELLED
+            """)
+    int markPaid(@Param("id") Long id, @Param("now") Instant now);
 }
@@ -1,7 +1,31 @@
 package com.codeop.store.repository;
 
+import com.codeop.store.dto.PaymentResponse;
 import com.codeop.store.model.Payment;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.PaymentResponse(p.id, p.order.id, p.provider, p.providerReference,
+                p.amount, p.currency, p.status, p.createdAt)
+            from Payment p
+            order by p.id
+            """)
+    List<PaymentResponse> findAllResponses();
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.PaymentResponse(p.id, p.order.id, p.provider, p.providerReference,
+                p.amount, p.currency, p.status, p.createdAt)
+            from Payment p
+            where p.id = :id
+            """)
+    Optional<PaymentResponse> findResponseById(@Param("id") Long id);
 }
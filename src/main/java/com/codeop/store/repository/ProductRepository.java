@@ -1,14 +1,136 @@
 package com.codeop.store.repository;
 
+import com.codeop.store.catalog.CatalogVersion;
+import com.codeop.store.catalog.ProductCategory;
+import com.codeop.store.dto.ProductResponse;
+import com.codeop.store.dto.ProductSuggestionResponse;
 import com.codeop.store.model.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseOrCategoryContainingIgnoreCaseOrSkuContainingIgnoreCase(
-            String name,
-            String description,
-            String category,
-            String sku
-    );
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.ProductResponse(p.id, p.name, p.description, p.price, p.currency, p.sku,
+                p.stockQuantity + cast(coalesce((select sum(s.quantity) from StockShard s where s.product.id = p.id), 0)
+                    as Integer),
+                p.imageUrl, p.category, p.active, p.createdAt,
+                greatest(p.updatedAt, (select max(s.updatedAt) from StockShard s where s.product.id = p.id)))
+            from Product p
+            order by p.createdAt asc, p.id asc
+            """)
+    List<ProductResponse> findFirstPage(Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.ProductResponse(p.id, p.name, p.description, p.price, p.currency, p.sku,
+                p.stockQuantity + cast(coalesce((select sum(s.quantity) from StockShard s where s.product.id = p.id), 0)
+                    as Integer),
+                p.imageUrl, p.category, p.active, p.createdAt,
+                greatest(p.updatedAt, (select max(s.updatedAt) from StockShard s where s.product.id = p.id)))
+            from Product p
+            where p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id)
+            order by p.createdAt asc, p.id asc
+            """)
+    List<ProductResponse> findPageAfter(@Param("createdAt") Instant createdAt, @Param("id") Long id, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.ProductResponse(p.id, p.name, p.description, p.price, p.currency, p.sku,
+                p.stockQuantity + cast(coalesce((select sum(s.quantity) from StockShard s where s.product.id = p.id), 0)
+                    as Integer),
+                p.imageUrl, p.category, p.active, p.createdAt,
+                greatest(p.updatedAt, (select max(s.updatedAt) from StockShard s where s.product.id = p.id)))
+            from Product p
+            where p.active = true
+            order by p.createdAt asc, p.id asc
+            """)
+    List<ProductResponse> findActiveResponses();
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.codeop.store.dto.ProductResponse(p.id, p.name, p.description, p.price, p.currency, p.sku,
+                p.stockQuantity + cast(coalesce((select sum(s.quantity) from StockShard s where s.product.id = p.id), 0)
+                    as Integer),
+                p.imageUrl, p.category, p.active, p.createdAt,
+                greatest(p.updatedAt, (select max(s.updatedAt) from StockShard s where s.product.id = p.id)))
+            from Product p
+            where p.active = true and p.id in :ids
+            """)
+    List<ProductResponse> findActiveResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findForUpdate(@Param("id") Long id);
+
+    // Not versioned: the guarded delta is safe against concurrent writers and must not make
+    // every order conflict with an admin edit of the same product.
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = :now
+            where p.id = :id and (p.stockQuantity is null or p.stockQuantity >= :quantity)
+            """)
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = :now
+            where p.id = :id
+            """)
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") Instant now);
+
+    // Sharded stock moves only touch the shard rows, so their latest write counts as a catalog change too.
+    @Query("""
+            select new com.codeop.store.catalog.CatalogVersion(count(p),
+                greatest(max(p.updatedAt), (select max(s.updatedAt) from StockShard s)))
+            from Product p
+            """)
+    CatalogVersion findCatalogVersion();
+
+    @Query("""
+            select new com.codeop.store.catalog.ProductCategory(p.id, p.category)
+            from Product p
+            where p.active = true
+            """)
+    List<ProductCategory> findActiveCategories();
+
+    @Query("""
+            select new com.codeop.store.dto.ProductSuggestionResponse(p.id, p.name, p.sku)
+            from Product p
+            where p.active = true
+            """)
+    List<ProductSuggestionResponse> findActiveSuggestions();
+
+    // Server-side cursor: PostgreSQL only honours the fetch size inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.codeop.store.dto.ProductResponse(p.id, p.name, p.description, p.price, p.currency, p.sku,
+                p.stockQuantity + cast(coalesce((select sum(s.quantity) from StockShard s where s.product.id = p.id), 0)
+                    as Integer),
+                p.imageUrl, p.category, p.active, p.createdAt,
+                greatest(p.updatedAt, (select max(s.updatedAt) from StockShard s where s.product.id = p.id)))
+            from Product p
+            order by p.id
+            """)
+    Stream<ProductResponse> streamResponses();
 }
@@ -0,0 +1,7 @@
+package com.codeop.store.repository;
+
+public interface ShardCountView {
+    Long getProductId();
+
+    Long getShards();
+}
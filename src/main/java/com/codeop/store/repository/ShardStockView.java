@@ -0,0 +1,11 @@
+package com.codeop.store.repository;
+
+import java.time.Instant;
+
+public interface ShardStockView {
+    Long getProductId();
+
+    Long getQuantity();
+
+    Instant getUpdatedAt();
+}
@@ -0,0 +1,59 @@
+package com.codeop.store.repository;
+
+import com.codeop.store.model.StockShard;
+import jakarta.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockShardRepository extends JpaRepository<StockShard, Long> {
+
+    @Query("select s.product.id as productId, count(s) as shards from StockShard s group by s.product.id")
+    List<ShardCountView> countShardsByProduct();
+
+    long countByProductId(Long productId);
+
+    @Query("""
+            select s.product.id as productId, sum(s.quantity) as quantity, max(s.updatedAt) as updatedAt
+            from StockShard s
+            where s.product.id in :productIds
+            group by s.product.id
+            """)
+    List<ShardStockView> sumQuantityByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    List<StockShard> findByProductIdOrderByShard(Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockShard s where s.product.id = :productId order by s.shard")
+    List<StockShard> findForUpdate(@Param("productId") Long productId);
+
+    // Busy shards are skipped rather than waited on: a waiting update keeps the row locked even when the
+    // re-checked quantity no longer qualifies, which would let callers pile up locks across shards.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            update product_stock_shards set quantity = quantity - :quantity, updated_at = :now
+            where id = (select s.id from product_stock_shards s
+                where s.product_id = :productId and s.shard = :shard and s.quantity >= :quantity
+                for update skip locked)
+            """)
+    int take(@Param("productId") Long productId, @Param("shard") int shard, @Param("quantity") int quantity,
+             @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update StockShard s
+            set s.quantity = s.quantity + :quantity, s.updatedAt = :now
+            where s.product.id = :productId and s.shard = :shard
+            """)
+    int give(@Param("productId") Long productId, @Param("shard") int shard, @Param("quantity") int quantity,
+             @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from StockShard s where s.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
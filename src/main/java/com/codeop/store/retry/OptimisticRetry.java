@@ -0,0 +1,101 @@
+package com.codeop.store.retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Runs a unit of work in its own transaction and replays it when the commit loses an optimistic version
+ * check. Each replay starts from a fresh read, so writers never block each other and no update is lost;
+ * the delay between attempts grows exponentially with full jitter to spread out colliding writers.
+ * Only work that re-derives its write from the fresh read may be replayed; a write whose values come
+ * from the client goes through {@link #executeOnce} so a conflict reaches the client as a 409 instead
+ * of silently overwriting the other writer.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public OptimisticRetry(TransactionTemplate transactionTemplate,
+                           @Value("${app.retry.max-attempts}") int maxAttempts,
+                           @Value("${app.retry.initial-backoff}") Duration initialBackoff,
+                           @Value("${app.retry.max-backoff}") Duration maxBackoff) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        return run(operation, maxAttempts, work);
+    }
+
+    public void execute(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T executeOnce(String operation, Supplier<T> work) {
+        return run(operation, 1, work);
+    }
+
+    public Map<String, RetryStats> stats() {
+        Map<String, RetryStats> snapshot = new TreeMap<>();
+        counters.forEach((operation, stats) -> snapshot.put(operation, new RetryStats(stats.attempts.sum(),
+                stats.conflicts.sum(), stats.retries.sum(), stats.exhausted.sum())));
+        return snapshot;
+    }
+
+    private <T> T run(String operation, int attempts, Supplier<T> work) {
+        Counters stats = counters.computeIfAbsent(operation, key -> new Counters());
+        for (int attempt = 1; ; attempt++) {
+            stats.attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException ex) {
+                stats.conflicts.increment();
+                if (attempt >= attempts) {
+                    stats.exhausted.increment();
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Concurrent update, please retry", ex);
+                }
+                stats.retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while retrying", ex);
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
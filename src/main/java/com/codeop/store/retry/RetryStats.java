@@ -0,0 +1,4 @@
+package com.codeop.store.retry;
+
+public record RetryStats(long attempts, long conflicts, long retries, long exhausted) {
+}
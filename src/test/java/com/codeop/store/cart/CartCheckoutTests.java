@@ -0,0 +1,226 @@
+package com.codeop.store.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.controller.CartController;
+import com.codeop.store.dto.CartItemRequest;
+import com.codeop.store.dto.CheckoutRequest;
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.CartRepository;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Checkout against each cart store; see {@link JpaCartCheckoutTests} and {@link MemoryCartCheckoutTests}.
+ */
+abstract class CartCheckoutTests {
+
+    private static final String EMAIL = "checkout-test@example.com";
+
+    @Autowired
+    private CartController cartController;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> cartIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteData() {
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE customer_email = ?)",
+                EMAIL);
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_email = ?", EMAIL);
+        cartIds.forEach(id -> {
+            cartStore.evict(id);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ?", id);
+            jdbcTemplate.update("DELETE FROM carts WHERE id = ?", id);
+        });
+        productIds.forEach(productRepository::deleteById);
+    }
+
+    @Test
+    void checkoutWritesTheOrderTakesStockAndRemovesTheCart() {
+        Long productId = product("2.50", "USD", 5);
+        Long cartId = cart();
+        add(cartId, productId, 2);
+
+        OrderResponse order = cartController.checkout(cartId, request());
+
+        assertThat(order.getTotalAmount()).isEqualByComparingTo("5.00");
+        assertThat(order.getItems()).hasSize(1);
+        assertThat(orderItemRows()).isEqualTo(1);
+        assertThat(cartRepository.existsById(cartId)).isFalse();
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void emptyCartIsABadRequest() {
+        Long cartId = cart();
+
+        assertStatus(() -> cartController.checkout(cartId, request()), HttpStatus.BAD_REQUEST);
+        assertThat(orders()).isZero();
+    }
+
+    @Test
+    void productInAnotherCurrencyIsABadRequest() {
+        Long cartId = cart();
+        add(cartId, product("1.00", "USD", 5), 1);
+        add(cartId, product("1.00", "EUR", 5), 1);
+
+        assertStatus(() -> cartController.checkout(cartId, request()), HttpStatus.BAD_REQUEST);
+        assertThat(orders()).isZero();
+    }
+
+    @Test
+    void overflowingTotalIsABadRequest() {
+        Long productId = product("1.00", "USD", null);
+        Long cartId = cart();
+        add(cartId, productId, 2_000_000_000);
+        // Lines are priced at checkout, so a price raised since the item was added can push the total over.
+        jdbcTemplate.update("UPDATE products SET price = 9999999999.99 WHERE id = ?", productId);
+
+        assertStatus(() -> cartController.checkout(cartId, request()), HttpStatus.BAD_REQUEST);
+        assertThat(orders()).isZero();
+    }
+
+    @Test
+    void missingStockRollsBackTheOrderAndKeepsTheCart() {
+        Long productId = product("1.00", "USD", 1);
+        Long cartId = cart();
+        add(cartId, productId, 2);
+
+        assertStatus(() -> cartController.checkout(cartId, request()), HttpStatus.CONFLICT);
+
+        assertThat(orders()).isZero();
+        assertThat(orderItemRows()).isZero();
+        assertThat(cartController.getCart(cartId).getItemCount()).isEqualTo(2);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    void cartChangedDuringCheckoutIsAConflict() throws Exception {
+        Long productId = product("1.00", "USD", 5);
+        Long cartId = cart();
+        add(cartId, productId, 1);
+
+        // The product row is held locked, so checkout stops at the order line insert after reading the cart;
+        // the cart's version is bumped meanwhile and the version-guarded delete then finds nothing.
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CompletableFuture<Void> editor = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT id FROM products WHERE id = ? FOR UPDATE", Long.class,
+                            productId);
+                    locked.countDown();
+                    await(blocked);
+                    jdbcTemplate.update("UPDATE carts SET version = version + 1 WHERE id = ?", cartId);
+                }));
+        await(locked);
+        CompletableFuture<OrderResponse> checkout = CompletableFuture.supplyAsync(() ->
+                cartController.checkout(cartId, request()));
+        awaitLockWait();
+        blocked.countDown();
+        editor.get(10, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> checkout.get(10, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(orders()).isZero();
+        assertThat(orderItemRows()).isZero();
+        assertThat(cartRepository.existsById(cartId)).isTrue();
+    }
+
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'"
+                + " AND datname = current_database()", Integer.class) == 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void assertStatus(Runnable call, HttpStatus status) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(status));
+    }
+
+    private int orders() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM orders WHERE customer_email = ?", Integer.class,
+                EMAIL);
+    }
+
+    private int orderItemRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM order_items WHERE order_id IN"
+                + " (SELECT id FROM orders WHERE customer_email = ?)", Integer.class, EMAIL);
+    }
+
+    private Long cart() {
+        Long id = cartController.createCart().getId();
+        cartIds.add(id);
+        return id;
+    }
+
+    private void add(Long cartId, Long productId, int quantity) {
+        CartItemRequest request = new CartItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        cartController.addItem(cartId, request);
+    }
+
+    private Long product(String price, String currency, Integer stock) {
+        Product product = new Product();
+        product.setName("Checkout test");
+        product.setPrice(new BigDecimal(price));
+        product.setCurrency(currency);
+        product.setSku("CHECKOUT-" + UUID.randomUUID());
+        product.setStockQuantity(stock);
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private static CheckoutRequest request() {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCustomerName("Checkout Test");
+        request.setCustomerEmail(EMAIL);
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package com.codeop.store.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.model.Cart;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.CartRepository;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// A TTL reaching back to 2000 keeps the reaper away from any real carts in the database.
+@SpringBootTest(properties = {"app.cart.reaper.ttl=9000d", "app.cart.reaper.batch-size=2",
+        "app.cart.reaper.pause=0ms"})
+class CartReaperTests {
+
+    private static final Instant ABANDONED = Instant.parse("2000-01-01T00:00:00Z");
+
+    @Autowired
+    private CartReaper cartReaper;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> cartIds = new ArrayList<>();
+    private Long productId;
+
+    @AfterEach
+    void deleteData() {
+        cartIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ?", id);
+            jdbcTemplate.update("DELETE FROM carts WHERE id = ?", id);
+        });
+        if (productId != null) {
+            productRepository.deleteById(productId);
+        }
+    }
+
+    @Test
+    void reapsIdleCartsInBatchesAndSkipsLockedOnes() throws Exception {
+        List<Long> idle = List.of(cart(ABANDONED, 2), cart(ABANDONED, 0), cart(ABANDONED, 1), cart(ABANDONED, 0));
+        Long locked = cart(ABANDONED, 1);
+        Long recent = cart(Instant.now(), 1);
+
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        CountDownLatch reaped = new CountDownLatch(1);
+        CompletableFuture<Void> editor = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT id FROM carts WHERE id = ? FOR UPDATE", Long.class, locked);
+                    lockHeld.countDown();
+                    await(reaped);
+                }));
+        await(lockHeld);
+        try {
+            cartReaper.reap();
+        } finally {
+            reaped.countDown();
+        }
+        editor.get(10, TimeUnit.SECONDS);
+
+        idle.forEach(id -> assertThat(cartRepository.existsById(id)).isFalse());
+        assertThat(cartRepository.existsById(locked)).isTrue();
+        assertThat(cartRepository.existsById(recent)).isTrue();
+        assertThat(cartReaper.stats().lastRemovedCarts()).isEqualTo(4);
+        assertThat(cartReaper.stats().lastRemovedItems()).isEqualTo(3);
+
+        cartReaper.reap();
+
+        assertThat(cartRepository.existsById(locked)).isFalse();
+        assertThat(cartRepository.existsById(recent)).isTrue();
+        assertThat(cartReaper.stats().lastRemovedCarts()).isEqualTo(1);
+    }
+
+    private Long cart(Instant updatedAt, int items) {
+        Long id = cartRepository.save(new Cart()).getId();
+        cartIds.add(id);
+        for (int i = 0; i < items; i++) {
+            jdbcTemplate.update("INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) VALUES (?, ?, 1, 1)",
+                    id, product());
+        }
+        jdbcTemplate.update("UPDATE carts SET updated_at = ? WHERE id = ?", Timestamp.from(updatedAt), id);
+        return id;
+    }
+
+    private Long product() {
+        if (productId == null) {
+            Product product = new Product();
+            product.setName("Reaper test");
+            product.setPrice(new BigDecimal("1.00"));
+            product.setCurrency("USD");
+            product.setSku("REAP-" + UUID.randomUUID());
+            productId = productRepository.save(product).getId();
+        }
+        return productId;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.codeop.store.cart;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "app.cart.store=jpa")
+class JpaCartCheckoutTests extends CartCheckoutTests {
+}
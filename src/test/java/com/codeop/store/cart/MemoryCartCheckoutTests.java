@@ -0,0 +1,7 @@
+package com.codeop.store.cart;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {"app.cart.store=memory", "app.cart.recovery=none"})
+class MemoryCartCheckoutTests extends CartCheckoutTests {
+}
@@ -0,0 +1,153 @@
+package com.codeop.store.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.model.Cart;
+import com.codeop.store.model.CartItem;
+import com.codeop.store.model.Product;
+import com.codeop.store.pricing.Money;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+// A TTL reaching back to 2000 keeps the reaper away from any real carts in the database.
+@SpringBootTest(properties = {"app.cart.store=memory", "app.cart.recovery=none", "app.cart.reaper.ttl=9000d",
+        "app.cart.reaper.pause=0ms"})
+class WriteBehindCartStoreTests {
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartReaper cartReaper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> cartIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteData() {
+        cartIds.forEach(id -> {
+            cartStore.evict(id);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ?", id);
+            jdbcTemplate.update("DELETE FROM carts WHERE id = ?", id);
+        });
+        productIds.forEach(productRepository::deleteById);
+    }
+
+    @Test
+    void failedLineInsertLeavesNoRowsBehind() {
+        Long cartId = cart();
+        Product kept = product();
+        Product deleted = product();
+        productRepository.deleteById(deleted.getId());
+
+        assertThatThrownBy(() -> cartStore.update(cartId, cart -> {
+            cart.addItem(item(kept, 1));
+            cart.addItem(item(deleted, 1));
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        List<CartItem> items = cartStore.read(cartId, cart -> List.copyOf(cart.getItems()));
+        assertThat(items).isEmpty();
+        assertThat(itemRows(cartId)).isZero();
+    }
+
+    @Test
+    void failedConsumeDoesNotReplayWrittenChanges() {
+        Long cartId = cart();
+        Product product = product();
+        Long itemId = cartStore.update(cartId, cart -> cart.addItem(item(product, 1)),
+                cart -> cart.findItemByProductId(product.getId()).orElseThrow().getId());
+        cartStore.update(cartId, cart -> cart.changeQuantity(cart.findItem(itemId).orElseThrow(), 3));
+
+        assertThatThrownBy(() -> cartStore.consume(cartId, () -> {
+            throw new IllegalStateException("checkout failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(quantity(itemId)).isEqualTo(3);
+
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 7 WHERE id = ?", itemId);
+        cartStore.flushDirty();
+
+        assertThat(quantity(itemId)).isEqualTo(7);
+    }
+
+    @Test
+    void reaperGoesByTheCartInMemoryRatherThanItsLaggingRow() throws Exception {
+        Product product = product();
+        Long edited = cart();
+        Long idle = cart();
+        cartStore.evict(idle);
+        backdate(edited);
+        backdate(idle);
+        // Idle as far as the database knows, but edited since; the change is still waiting for a flush.
+        cartStore.update(edited, cart -> cart.addItem(item(product, 1)));
+
+        cartReaper.reap();
+
+        int itemCount = cartStore.read(edited, Cart::getItemCount);
+        assertThat(itemCount).isEqualTo(1);
+        cartStore.flushDirty();
+        assertThat(jdbcTemplate.queryForObject("SELECT item_count FROM carts WHERE id = ?", Integer.class, edited))
+                .isEqualTo(1);
+        assertThatThrownBy(() -> cartStore.read(idle, Cart::getItemCount))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    private void backdate(Long cartId) {
+        jdbcTemplate.update("UPDATE carts SET updated_at = ? WHERE id = ?",
+                Timestamp.from(Instant.parse("2000-01-01T00:00:00Z")), cartId);
+    }
+
+    private int itemRows(Long cartId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM cart_items WHERE cart_id = ?", Integer.class, cartId);
+    }
+
+    private int quantity(Long itemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM cart_items WHERE id = ?", Integer.class, itemId);
+    }
+
+    private Long cart() {
+        Long id = cartStore.create().getId();
+        cartIds.add(id);
+        return id;
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setName("Cart test");
+        product.setPrice(new BigDecimal("2.50"));
+        product.setCurrency("USD");
+        product.setSku("CART-" + UUID.randomUUID());
+        product.setStockQuantity(10);
+        Product saved = productRepository.save(product);
+        productIds.add(saved.getId());
+        return saved;
+    }
+
+    private static CartItem item(Product product, int quantity) {
+        CartItem item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(Money.toMinor(product.getPrice()));
+        return item;
+    }
+}
@@ -0,0 +1,78 @@
+package com.codeop.store.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.dto.ProductResponse;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotTests {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final CatalogVersion SOURCE = new CatalogVersion(3L, T0);
+
+    private final CatalogSnapshot snapshot = new CatalogSnapshot("v1", SOURCE,
+            List.of(product(1, 10, 5), product(2, 20, 5), product(3, 30, 5)));
+
+    @Test
+    void replacesProductKeepingCreationOrder() {
+        CatalogVersion next = new CatalogVersion(3L, T0.plusSeconds(100));
+
+        CatalogSnapshot updated = snapshot.with("v2", next, Set.of(2L), List.of(product(2, 20, 9)));
+
+        assertThat(ids(updated)).containsExactly(1L, 2L, 3L);
+        assertThat(updated.findById(2L)).hasValueSatisfying(p -> assertThat(p.getStockQuantity()).isEqualTo(9));
+        assertThat(updated.version()).isEqualTo("v2");
+        assertThat(updated.source()).isEqualTo(next);
+        assertThat(snapshot.findById(2L)).hasValueSatisfying(p -> assertThat(p.getStockQuantity()).isEqualTo(5));
+    }
+
+    @Test
+    void dropsProductsWithoutReplacement() {
+        CatalogSnapshot updated = snapshot.with("v2", SOURCE, Set.of(1L, 3L), List.of());
+
+        assertThat(ids(updated)).containsExactly(2L);
+        assertThat(updated.findById(1L)).isEmpty();
+    }
+
+    @Test
+    void mergesSeveralNewProductsInOrder() {
+        CatalogSnapshot updated = snapshot.with("v2", SOURCE, Set.of(4L, 5L, 6L),
+                List.of(product(6, 40, 1), product(4, 5, 1), product(5, 25, 1)));
+
+        assertThat(ids(updated)).containsExactly(4L, 1L, 2L, 5L, 3L, 6L);
+    }
+
+    @Test
+    void replacesEntriesInPlaceIgnoringUnknownProducts() {
+        CatalogSnapshot updated = snapshot.withReplaced("v2", SOURCE,
+                List.of(product(3, 30, 0), product(1, 10, 7), product(9, 90, 1)));
+
+        assertThat(ids(updated)).containsExactly(1L, 2L, 3L);
+        assertThat(updated.findById(1L)).hasValueSatisfying(p -> assertThat(p.getStockQuantity()).isEqualTo(7));
+        assertThat(updated.findById(3L)).hasValueSatisfying(p -> assertThat(p.getStockQuantity()).isZero());
+        assertThat(updated.findById(9L)).isEmpty();
+        assertThat(snapshot.findById(1L)).hasValueSatisfying(p -> assertThat(p.getStockQuantity()).isEqualTo(5));
+    }
+
+    @Test
+    void pagesAfterKeyAndTracksLatestUpdate() {
+        assertThat(snapshot.pageAfter(null, null, 2)).extracting(ProductResponse::getId).containsExactly(1L, 2L);
+        assertThat(snapshot.pageAfter(T0.plusSeconds(20), 2L, 2)).extracting(ProductResponse::getId)
+                .containsExactly(3L);
+        assertThat(snapshot.lastUpdatedAt()).isEqualTo(T0.plusSeconds(30));
+    }
+
+    private static List<Long> ids(CatalogSnapshot snapshot) {
+        return snapshot.pageAfter(null, null, Integer.MAX_VALUE).stream().map(ProductResponse::getId).toList();
+    }
+
+    private static ProductResponse product(long id, long createdSecond, int stock) {
+        Instant created = T0.plusSeconds(createdSecond);
+        return new ProductResponse(id, "Product " + id, null, new BigDecimal("1.00"), "USD", "SKU-" + id, stock,
+                null, null, true, created, created);
+    }
+}
@@ -0,0 +1,56 @@
+package com.codeop.store.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTests {
+
+    @Test
+    void splitsPlainFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b,,c\n"));
+
+        assertThat(reader.next()).containsExactly("a", "b", "", "c");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"x,y\",\"say \"\"hi\"\"\",\"two\nlines\"\nnext\n"));
+
+        assertThat(reader.next()).containsExactly("x,y", "say \"hi\"", "two\nlines");
+        assertThat(reader.next()).containsExactly("next");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void acceptsCrLfAndBareCrLineEnds() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\r\nc\rd"));
+
+        assertThat(reader.next()).containsExactly("a", "b");
+        assertThat(reader.next()).containsExactly("c");
+        assertThat(reader.next()).containsExactly("d");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quoteInsideUnquotedFieldIsLiteral() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("5\" pipe,ok\n"));
+
+        assertThat(reader.next()).isEqualTo(List.of("5\" pipe", "ok"));
+    }
+
+    @Test
+    void unterminatedQuoteIsMalformedInput() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,1\n2\n"));
+
+        assertThat(reader.next()).containsExactly("ok");
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+    }
+}
@@ -0,0 +1,87 @@
+package com.codeop.store.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.model.Product;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTests {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(null);
+
+    @Test
+    void tokenizesOnAnythingButLettersAndDigits() {
+        assertThat(ProductSearchIndex.tokenize("  Wi-Fi Router/AX3000, 2.4GHz ")).containsExactly(
+                "wi", "fi", "router", "ax3000", "2", "4ghz");
+        assertThat(ProductSearchIndex.tokenize("  ")).isEmpty();
+        assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void matchesTermPrefixesAndRanksExactTermsFirst() {
+        save(1, "Laptop stand", null, null, null);
+        save(2, "Lap desk", null, null, null);
+
+        assertThat(index.search("lap")).containsExactly(new SearchHit(2, 8), new SearchHit(1, 4));
+        assertThat(index.search("desk")).extracting(SearchHit::productId).containsExactly(2L);
+        assertThat(index.search("desks")).isEmpty();
+    }
+
+    @Test
+    void everyQueryTokenMustMatch() {
+        save(1, "Steel water bottle", null, null, null);
+        save(2, "Glass water jug", null, null, null);
+
+        assertThat(index.search("water stee")).extracting(SearchHit::productId).containsExactly(1L);
+        assertThat(index.search("water plastic")).isEmpty();
+    }
+
+    @Test
+    void weighsNameAndSkuAboveCategoryAboveDescription() {
+        save(1, "Soap", "Made with cedar oil", null, null);
+        save(2, "Shampoo", null, "Cedar", null);
+        save(3, "Candle", null, null, "CEDAR-01");
+
+        assertThat(index.search("cedar")).containsExactly(
+                new SearchHit(3, 8), new SearchHit(2, 4), new SearchHit(1, 2));
+    }
+
+    @Test
+    void savingAgainReplacesTheOldTermsAndDeletingRemovesThem() {
+        save(1, "Blue towel", null, null, null);
+        save(1, "Green towel", null, null, null);
+
+        assertThat(index.search("blue")).isEmpty();
+        assertThat(index.search("green")).extracting(SearchHit::productId).containsExactly(1L);
+
+        index.onProductDeleted(new ProductDeletedEvent(1L));
+
+        assertThat(index.search("towel")).isEmpty();
+    }
+
+    @Test
+    void pagesAfterTheLastHit() {
+        for (long id = 1; id <= 5; id++) {
+            save(id, "Brush " + id, null, null, null);
+        }
+
+        List<SearchHit> first = index.search("brush", null, 2);
+        List<SearchHit> second = index.search("brush", first.get(1), 2);
+        List<SearchHit> last = index.search("brush", second.get(1), 2);
+
+        assertThat(first).extracting(SearchHit::productId).containsExactly(1L, 2L);
+        assertThat(second).extracting(SearchHit::productId).containsExactly(3L, 4L);
+        assertThat(last).extracting(SearchHit::productId).containsExactly(5L);
+    }
+
+    private void save(long id, String name, String description, String category, String sku) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setSku(sku);
+        index.onProductSaved(new ProductSavedEvent(product));
+    }
+}
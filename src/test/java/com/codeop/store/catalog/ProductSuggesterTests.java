@@ -0,0 +1,72 @@
+package com.codeop.store.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.dto.ProductSuggestionResponse;
+import com.codeop.store.model.Product;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProductSuggesterTests {
+
+    private final ProductSuggester suggester = new ProductSuggester(null);
+
+    @Test
+    void matchesNameStartsWordStartsAndSkus() {
+        save(1, "Laptop Stand", "LS-100", true);
+        save(2, "Standing desk", "DSK-2", true);
+
+        assertThat(ids("lap")).containsExactly(1L);
+        assertThat(ids("STAND")).containsExactly(1L, 2L);
+        assertThat(ids("laptop st")).containsExactly(1L);
+        assertThat(ids("ls-1")).containsExactly(1L);
+        assertThat(ids("top")).isEmpty();
+        assertThat(ids("  ")).isEmpty();
+    }
+
+    @Test
+    void listsEachProductOnceAndStopsAtTheLimit() {
+        save(1, "Pad one", "PAD-1", true);
+        save(2, "Pad two", "PAD-2", true);
+        save(3, "Pad three", "PAD-3", true);
+
+        assertThat(ids("pad")).containsExactly(1L, 3L, 2L);
+        assertThat(suggester.suggest("pad", 2)).hasSize(2);
+    }
+
+    @Test
+    void leavesOutInactiveAndDeletedProducts() {
+        save(1, "Kettle", null, true);
+        save(2, "Kettlebell", null, true);
+
+        save(1, "Kettle", null, false);
+        assertThat(ids("kettle")).containsExactly(2L);
+
+        suggester.onProductDeleted(new ProductDeletedEvent(2L));
+        assertThat(ids("kettle")).isEmpty();
+    }
+
+    @Test
+    void savingAgainReplacesOldKeys() {
+        save(1, "Red mug", "MUG-R", true);
+        save(1, "Blue mug", "MUG-B", true);
+
+        assertThat(ids("red")).isEmpty();
+        assertThat(ids("mug-r")).isEmpty();
+        assertThat(suggester.suggest("blue", 10)).singleElement()
+                .satisfies(suggestion -> assertThat(suggestion.getSku()).isEqualTo("MUG-B"));
+    }
+
+    private List<Long> ids(String prefix) {
+        return suggester.suggest(prefix, 10).stream().map(ProductSuggestionResponse::getId).toList();
+    }
+
+    private void save(long id, String name, String sku, boolean active) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setSku(sku);
+        product.setActive(active);
+        suggester.onProductSaved(new ProductSavedEvent(product));
+    }
+}
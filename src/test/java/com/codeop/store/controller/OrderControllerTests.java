@@ -0,0 +1,147 @@
+package com.codeop.store.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.catalog.ProductCache;
+import com.codeop.store.dto.OrderItemRequest;
+import com.codeop.store.dto.OrderRequest;
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderControllerTests {
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void deleteData() {
+        productIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM order_items WHERE product_id = ?", id);
+            productRepository.deleteById(id);
+        });
+        jdbcTemplate.update("DELETE FROM orders o WHERE customer_email = 'order-test@example.com'"
+                + " AND NOT EXISTS (SELECT 1 FROM order_items i WHERE i.order_id = o.id)");
+    }
+
+    @Test
+    void resolvesEveryProductWithOneQuery() {
+        List<Long> ids = List.of(product(), product(), product());
+        productCache.evictAll();
+        statistics.clear();
+
+        OrderResponse order = orderController.createOrder(null, request(
+                line(ids.get(0), 1), line(ids.get(1), 2), line(ids.get(0), 3),
+                line(ids.get(2), 1), line(ids.get(1), 1), line(ids.get(2), 2))).getBody();
+
+        assertThat(order).isNotNull();
+        assertThat(order.getItems()).hasSize(3);
+        assertThat(productQueries()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isEqualTo(3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void queryCountDoesNotGrowWithTheNumberOfLines(int lines) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            ids.add(product());
+        }
+        productCache.evictAll();
+        statistics.clear();
+
+        OrderResponse order = orderController.createOrder(null,
+                request(ids.stream().map(id -> line(id, 1)).toArray(OrderItemRequest[]::new))).getBody();
+
+        assertThat(order).isNotNull();
+        assertThat(order.getItems()).hasSize(lines);
+        assertThat(productQueries()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isEqualTo(lines);
+    }
+
+    @Test
+    void overflowingQuantitiesAreABadRequest() {
+        Long id = product();
+
+        assertThatThrownBy(() -> orderController.createOrder(null,
+                request(line(id, Integer.MAX_VALUE), line(id, 1))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    // Product reads issued for pricing; catalog projections and stock updates do not select from products.
+    private long productQueries() {
+        return Arrays.stream(statistics.getQueries())
+                .filter(query -> query.contains("from products"))
+                .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionCount())
+                .sum();
+    }
+
+    private Long product() {
+        Product product = new Product();
+        product.setName("Order test");
+        product.setPrice(new BigDecimal("3.00"));
+        product.setCurrency("USD");
+        product.setSku("ORDER-" + UUID.randomUUID());
+        product.setStockQuantity(100);
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private static OrderRequest request(OrderItemRequest... lines) {
+        OrderRequest request = new OrderRequest();
+        request.setCustomerName("Order Test");
+        request.setCustomerEmail("order-test@example.com");
+        request.setCurrency("USD");
+        request.setItems(List.of(lines));
+        return request;
+    }
+
+    private static OrderItemRequest line(Long productId, int quantity) {
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
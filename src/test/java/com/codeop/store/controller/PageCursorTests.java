@@ -0,0 +1,76 @@
+package com.codeop.store.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class PageCursorTests {
+
+    @Test
+    void roundTripsTheSortKey() {
+        Instant createdAt = Instant.parse("2026-03-01T10:15:30.123456Z");
+
+        String cursor = PageCursor.encode(createdAt, 42L);
+        String[] parts = PageCursor.decode(cursor, 2);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(PageCursor.parseInstant(parts[0])).isEqualTo(createdAt);
+        assertThat(PageCursor.parseLong(parts[1])).isEqualTo(42L);
+    }
+
+    @Test
+    void keepsEmptyTrailingParts() {
+        assertThat(PageCursor.decode(PageCursor.encode(1500, 7L, ""), 3)).containsExactly("1500", "7", "");
+    }
+
+    @Test
+    void rejectsCursorsThatAreNotBase64() {
+        assertBadRequest(() -> PageCursor.decode("not a cursor!", 2));
+    }
+
+    @Test
+    void rejectsCursorsWithTheWrongNumberOfParts() {
+        String cursor = PageCursor.encode(Instant.EPOCH, 1L);
+
+        assertBadRequest(() -> PageCursor.decode(cursor, 3));
+        assertBadRequest(() -> PageCursor.decode(encodeRaw("1970-01-01T00:00:00Z|1|extra"), 2));
+    }
+
+    @Test
+    void rejectsTamperedValues() {
+        String[] parts = PageCursor.decode(encodeRaw("yesterday|1 OR 1=1"), 2);
+
+        assertBadRequest(() -> PageCursor.parseInstant(parts[0]));
+        assertBadRequest(() -> PageCursor.parseLong(parts[1]));
+    }
+
+    @Test
+    void rejectsIntsThatWouldOverflow() {
+        assertThat(PageCursor.parseInt(String.valueOf(Integer.MAX_VALUE))).isEqualTo(Integer.MAX_VALUE);
+        assertBadRequest(() -> PageCursor.parseInt(String.valueOf(Integer.MAX_VALUE + 1L)));
+    }
+
+    @Test
+    void clampsPageSizes() {
+        assertThat(PageCursor.clampSize(null, 10, 100)).isEqualTo(10);
+        assertThat(PageCursor.clampSize(500, 10, 100)).isEqualTo(100);
+        assertThat(PageCursor.clampSize(25, 10, 100)).isEqualTo(25);
+        assertBadRequest(() -> PageCursor.clampSize(0, 10, 100));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
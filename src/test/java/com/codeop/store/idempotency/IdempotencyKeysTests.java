@@ -0,0 +1,131 @@
+package com.codeop.store.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.repository.IdempotencyRecordRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+@SpringBootTest
+class IdempotencyKeysTests {
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String scope = "test-" + UUID.randomUUID();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void deleteRecords() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id LIKE ?", scope + ":%");
+    }
+
+    @Test
+    void replaysTheRecordedResponseWithoutRunningAgain() {
+        String first = idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+        String second = idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void responseRecordedByAnotherInstanceIsReplayedFromTheDatabase() {
+        String first = idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+        IdempotencyKeys otherInstance = new IdempotencyKeys(repository, transactionTemplate, jsonMapper,
+                Duration.ofHours(1), 10, Duration.ofSeconds(5));
+
+        String replayed = otherInstance.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+
+        assertThat(replayed).isEqualTo(first);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRejected() {
+        idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+
+        assertThatThrownBy(() -> idempotencyKeys.execute(scope, "k1", Map.of("a", 2), String.class, this::respond))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedAttemptIsNotRecorded() {
+        assertThatThrownBy(() -> idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, () -> {
+            runs.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock");
+        })).isInstanceOf(ResponseStatusException.class);
+
+        String retried = idempotencyKeys.execute(scope, "k1", Map.of("a", 1), String.class, this::respond);
+
+        assertThat(retried).isEqualTo("response-2");
+        assertThat(repository.findById(scope + ":anonymous:k1")).isPresent();
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstAndShareItsResponse() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(6)) {
+            for (int i = 0; i < 6; i++) {
+                results.add(executor.submit(() -> idempotencyKeys.execute(scope, "k1", Map.of("a", 1),
+                        String.class, () -> {
+                            await(release);
+                            return respond();
+                        })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("response-1");
+            }
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    private String respond() {
+        return "response-" + runs.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.codeop.store.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.controller.ProductController;
+import com.codeop.store.dto.ProductResponse;
+import com.codeop.store.model.Product;
+import com.codeop.store.model.StockShard;
+import com.codeop.store.repository.ProductRepository;
+import com.codeop.store.repository.StockShardRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+@SpringBootTest
+class ShardedInventoryTests {
+
+    @Autowired
+    private ShardedInventory shardedInventory;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockShardRepository stockShardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductController productController;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteProducts() {
+        productIds.stream().filter(productRepository::existsById).forEach(productController::deleteProduct);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversellShardedStock() throws Exception {
+        Long productId = product(30);
+        shardedInventory.split(productId, 4);
+
+        int succeeded = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                attempts.add(executor.submit(() -> reserve(productId, 1)));
+            }
+            for (Future<Boolean> attempt : attempts) {
+                succeeded += attempt.get() ? 1 : 0;
+            }
+        }
+
+        assertThat(succeeded).isEqualTo(30);
+        assertThat(shardTotal(productId)).isZero();
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isZero();
+    }
+
+    @Test
+    void largeReservationDrainsSeveralShards() {
+        Long productId = product(10);
+        shardedInventory.split(productId, 4);
+
+        assertThat(reserve(productId, 7)).isTrue();
+
+        assertThat(shardTotal(productId)).isEqualTo(3);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                stockReservations.reserve(Map.of(productId, 4))))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void releaseReturnsStockToTheShards() {
+        Long productId = product(8);
+        shardedInventory.split(productId, 2);
+        reserve(productId, 5);
+
+        transactionTemplate.executeWithoutResult(status -> stockReservations.release(Map.of(productId, 5)));
+
+        assertThat(shardTotal(productId)).isEqualTo(8);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isZero();
+    }
+
+    @Test
+    void splitMadeElsewhereIsPickedUpOnReserve() {
+        Long productId = product(0);
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            for (int i = 0; i < 2; i++) {
+                StockShard shard = new StockShard();
+                shard.setProduct(product);
+                shard.setShard(i);
+                shard.setQuantity(5);
+                stockShardRepository.save(shard);
+            }
+        });
+
+        assertThat(reserve(productId, 3)).isTrue();
+
+        assertThat(shardTotal(productId)).isEqualTo(7);
+    }
+
+    @Test
+    void foldingBackIntoOneShardRestoresTheProductsRow() {
+        Long productId = product(12);
+        shardedInventory.split(productId, 3);
+        reserve(productId, 2);
+
+        shardedInventory.split(productId, 1);
+
+        assertThat(shardTotal(productId)).isZero();
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(10);
+        assertThat(reserve(productId, 10)).isTrue();
+    }
+
+    @Test
+    void shardWritesLeaveTheProductsRowAlone() {
+        Long productId = product(10);
+        shardedInventory.split(productId, 2);
+        Product before = productRepository.findById(productId).orElseThrow();
+
+        reserve(productId, 1);
+
+        Product after = productRepository.findById(productId).orElseThrow();
+        assertThat(after.getUpdatedAt()).isEqualTo(before.getUpdatedAt());
+        ProductResponse response = productRepository.findActiveResponsesByIdIn(List.of(productId)).getFirst();
+        assertThat(response.getStockQuantity()).isEqualTo(9);
+        assertThat(response.getUpdatedAt()).isAfter(before.getUpdatedAt());
+        assertThat(productRepository.findCatalogVersion().lastUpdatedAt()).isEqualTo(response.getUpdatedAt());
+    }
+
+    @Test
+    void deletingAShardedProductRemovesItsShards() {
+        Long productId = product(6);
+        shardedInventory.split(productId, 3);
+
+        productController.deleteProduct(productId);
+
+        assertThat(productRepository.existsById(productId)).isFalse();
+        assertThat(stockShardRepository.countByProductId(productId)).isZero();
+    }
+
+    private boolean reserve(Long productId, int quantity) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    stockReservations.reserve(Map.of(productId, quantity)));
+            return true;
+        } catch (ResponseStatusException ex) {
+            return false;
+        }
+    }
+
+    private int shardTotal(Long productId) {
+        return stockShardRepository.findByProductIdOrderByShard(productId).stream()
+                .mapToInt(StockShard::getQuantity).sum();
+    }
+
+    private Long product(int stock) {
+        Product product = new Product();
+        product.setName("Shard test");
+        product.setPrice(new BigDecimal("1.00"));
+        product.setCurrency("USD");
+        product.setSku("SHARD-" + UUID.randomUUID());
+        product.setStockQuantity(stock);
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,181 @@
+package com.codeop.store.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.controller.OrderController;
+import com.codeop.store.controller.PaymentController;
+import com.codeop.store.dto.OrderItemRequest;
+import com.codeop.store.dto.OrderRequest;
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.dto.PaymentRequest;
+import com.codeop.store.model.CustomerOrder;
+import com.codeop.store.model.OrderStatus;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.OrderRepository;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+@SpringBootTest
+class StockReservationsTests {
+
+    private static final String EMAIL = "reservation-test@example.com";
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private PaymentController paymentController;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteData() {
+        String orders = "SELECT id FROM orders WHERE customer_email = '" + EMAIL + "'";
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (" + orders + ")");
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + orders + ")");
+        jdbcTemplate.update("DELETE FROM orders WHERE customer_email = ?", EMAIL);
+        productIds.forEach(productRepository::deleteById);
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversellUnshardedStock() throws Exception {
+        Long productId = product(10);
+
+        int placed = 0;
+        int refused = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<HttpStatus>> attempts = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                attempts.add(executor.submit(() -> placeOrder(productId, 1)));
+            }
+            for (Future<HttpStatus> attempt : attempts) {
+                HttpStatus status = attempt.get();
+                placed += status == HttpStatus.CREATED ? 1 : 0;
+                refused += status == HttpStatus.CONFLICT ? 1 : 0;
+            }
+        }
+
+        assertThat(placed).isEqualTo(10);
+        assertThat(refused).isEqualTo(20);
+        assertThat(stock(productId)).isZero();
+        Integer held = jdbcTemplate.queryForObject("SELECT count(*) FROM orders o JOIN order_items i"
+                + " ON i.order_id = o.id WHERE i.product_id = ? AND o.status = 'NEW'", Integer.class, productId);
+        assertThat(held).isEqualTo(10);
+    }
+
+    @Test
+    void expiredReservationIsCancelledAndCanNoLongerBePaid() {
+        Long productId = product(5);
+        OrderResponse order = orderController.createOrder(null, request(productId, 3)).getBody();
+        assertThat(stock(productId)).isEqualTo(2);
+        jdbcTemplate.update("UPDATE orders SET reserved_until = ? WHERE id = ?",
+                Timestamp.from(Instant.now().minusSeconds(1)), order.getId());
+
+        stockReservations.releaseExpired();
+
+        CustomerOrder cancelled = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(cancelled.getReservedUntil()).isNull();
+        assertThat(stock(productId)).isEqualTo(5);
+        Integer paid = transactionTemplate.execute(status -> orderRepository.markPaid(order.getId(), Instant.now()));
+        assertThat(paid).isZero();
+        assertThatThrownBy(() -> paymentController.createPayment(null, payment(order)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void paidOrderKeepsItsStockThroughTheExpirySweep() {
+        Long productId = product(5);
+        OrderResponse order = orderController.createOrder(null, request(productId, 3)).getBody();
+
+        paymentController.createPayment(null, payment(order));
+        stockReservations.releaseExpired();
+
+        CustomerOrder paid = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(paid.getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(paid.getReservedUntil()).isNull();
+        assertThat(stock(productId)).isEqualTo(2);
+    }
+
+    private HttpStatus placeOrder(Long productId, int quantity) {
+        try {
+            return HttpStatus.valueOf(orderController.createOrder(null, request(productId, quantity))
+                    .getStatusCode().value());
+        } catch (ResponseStatusException ex) {
+            return HttpStatus.valueOf(ex.getStatusCode().value());
+        }
+    }
+
+    private int stock(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    private Long product(int stock) {
+        Product product = new Product();
+        product.setName("Reservation test");
+        product.setPrice(new BigDecimal("1.00"));
+        product.setCurrency("USD");
+        product.setSku("RESERVE-" + UUID.randomUUID());
+        product.setStockQuantity(stock);
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private static OrderRequest request(Long productId, int quantity) {
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        OrderRequest request = new OrderRequest();
+        request.setCustomerName("Reservation Test");
+        request.setCustomerEmail(EMAIL);
+        request.setCurrency("USD");
+        request.setItems(List.of(line));
+        return request;
+    }
+
+    private static PaymentRequest payment(OrderResponse order) {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(order.getId());
+        request.setProvider("test");
+        request.setProviderReference(UUID.randomUUID().toString());
+        request.setAmount(order.getTotalAmount());
+        request.setCurrency(order.getCurrency());
+        return request;
+    }
+}
@@ -0,0 +1,175 @@
+package com.codeop.store.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.inventory.StockReservations;
+import com.codeop.store.model.CustomerOrder;
+import com.codeop.store.model.OrderItem;
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+@SpringBootTest
+class AsyncOrderIntakeTests {
+
+    private static final String EMAIL = "intake-test@example.com";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    private final List<AsyncOrderIntake> intakes = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteData() {
+        intakes.stream().filter(AsyncOrderIntake::isRunning).forEach(AsyncOrderIntake::stop);
+        List<Long> orderIds = jdbcTemplate.queryForList("SELECT id FROM orders WHERE customer_email = ?", Long.class,
+                EMAIL);
+        orderIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id = ?", id);
+            jdbcTemplate.update("DELETE FROM order_intake_failures WHERE order_id = ?", id);
+            jdbcTemplate.update("DELETE FROM orders WHERE id = ?", id);
+        });
+        productIds.forEach(productRepository::deleteById);
+    }
+
+    @Test
+    void poisonOrderIsStoredAsFailedWithoutHoldingUpItsBatch() throws Exception {
+        AsyncOrderIntake intake = intake(1, tempDir.resolve("orders.journal"));
+        Long product = product();
+        Long deleted = product();
+        productRepository.deleteById(deleted);
+        productIds.remove(deleted);
+
+        intake.start();
+        // Committed together, so the three are queued at once and normally land in one batch.
+        List<Long> ids = transactionTemplate.execute(status -> List.of(
+                intake.submit(order(product)).getId(),
+                intake.submit(order(deleted)).getId(),
+                intake.submit(order(product)).getId()));
+        awaitWritten(intake, ids);
+
+        assertThat(status(ids.get(0))).isEqualTo("NEW");
+        assertThat(status(ids.get(1))).isEqualTo("FAILED");
+        assertThat(status(ids.get(2))).isEqualTo("NEW");
+        assertThat(jdbcTemplate.queryForObject("SELECT payload FROM order_intake_failures WHERE order_id = ?",
+                String.class, ids.get(1))).contains("\"productId\":" + deleted);
+    }
+
+    @Test
+    void orderIsQueuedOnlyWhenTheCallersTransactionCommits() throws Exception {
+        AsyncOrderIntake intake = intake(1, tempDir.resolve("orders.journal"));
+        intake.start();
+        Long product = product();
+
+        Long rolledBack = transactionTemplate.execute(status -> {
+            Long id = intake.submit(order(product)).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+        Long committed = transactionTemplate.execute(status -> intake.submit(order(product)).getId());
+        awaitWritten(intake, List.of(committed));
+
+        assertThat(status(committed)).isEqualTo("NEW");
+        assertThat(intake.find(rolledBack)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orders WHERE id = ?", Integer.class,
+                rolledBack)).isZero();
+    }
+
+    @Test
+    void ordersLeftAtShutdownAreWrittenAfterTheNextStart() throws Exception {
+        Path journal = tempDir.resolve("orders.journal");
+        // Without workers nothing is written, so everything accepted is still queued at stop.
+        AsyncOrderIntake stopped = intake(0, journal);
+        stopped.start();
+        Long product = product();
+        Long id = stopped.submit(order(product)).getId();
+        stopped.stop();
+
+        assertThat(Files.readAllLines(journal)).hasSize(1);
+
+        AsyncOrderIntake restarted = intake(1, journal);
+        restarted.start();
+        assertThat(Files.exists(journal)).isFalse();
+        awaitWritten(restarted, List.of(id));
+
+        assertThat(status(id)).isEqualTo("NEW");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM order_items WHERE order_id = ?", Integer.class,
+                id)).isEqualTo(1);
+    }
+
+    private AsyncOrderIntake intake(int workers, Path journal) {
+        AsyncOrderIntake intake = new AsyncOrderIntake(jdbcTemplate, stockReservations, transactionTemplate,
+                jsonMapper, 100, workers, 10, 10, journal);
+        intakes.add(intake);
+        return intake;
+    }
+
+    private void awaitWritten(AsyncOrderIntake intake, List<Long> ids) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (ids.stream().anyMatch(id -> intake.find(id).isPresent()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(ids).allMatch(id -> intake.find(id).isEmpty());
+    }
+
+    private String status(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+    private Long product() {
+        Product product = new Product();
+        product.setName("Intake test");
+        product.setPrice(new BigDecimal("4.00"));
+        product.setCurrency("USD");
+        product.setSku("INTAKE-" + UUID.randomUUID());
+        product.setStockQuantity(10);
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private static CustomerOrder order(Long productId) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setUnitPrice(400);
+        CustomerOrder order = new CustomerOrder();
+        order.setCustomerName("Intake Test");
+        order.setCustomerEmail(EMAIL);
+        order.setCurrency("USD");
+        order.setTotalAmount(400);
+        order.addItem(item);
+        return order;
+    }
+}
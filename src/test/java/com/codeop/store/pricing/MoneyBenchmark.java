@@ -0,0 +1,74 @@
+package com.codeop.store.pricing;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Order total over a cart's lines, once with {@link BigDecimal} as before and once in {@link Money} minor units.
+ * Not part of the test run; start {@link #main} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"5", "50"})
+    private int lines;
+
+    private BigDecimal[] decimalPrices;
+    private long[] minorPrices;
+    private int[] quantities;
+
+    @Setup
+    public void createCart() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        decimalPrices = new BigDecimal[lines];
+        minorPrices = new long[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(random.nextLong(1, 100_000), Money.SCALE);
+            minorPrices[i] = Money.toMinor(decimalPrices[i]);
+            quantities[i] = random.nextInt(1, 10);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long minorUnitTotal() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total = Math.addExact(total, Money.times(minorPrices[i], quantities[i]));
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoneyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
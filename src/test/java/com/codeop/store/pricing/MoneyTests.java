@@ -0,0 +1,40 @@
+package com.codeop.store.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class MoneyTests {
+
+    @Test
+    void convertsBetweenDecimalsAndMinorUnits() {
+        assertThat(Money.toMinor(new BigDecimal("12.34"))).isEqualTo(1234);
+        assertThat(Money.toMinor(new BigDecimal("7"))).isEqualTo(700);
+        assertThat(Money.toMinor(new BigDecimal("0.005"))).isEqualTo(1);
+        assertThat(Money.toDecimal(1234)).isEqualTo(new BigDecimal("12.34"));
+        assertThat(Money.toDecimal(-5)).isEqualTo(new BigDecimal("-0.05"));
+    }
+
+    @Test
+    void multiplicationOverflowIsAnError() {
+        assertThat(Money.times(250, 4)).isEqualTo(1000);
+        assertThatThrownBy(() -> Money.times(Long.MAX_VALUE / 2, 3)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void currencyCodesIgnoreCaseAndTellCurrenciesApart() {
+        assertThat(Money.currencyCode(null)).isEqualTo(Money.NO_CURRENCY);
+        assertThat(Money.currencyCode("usd")).isEqualTo(Money.currencyCode("USD"));
+        assertThat(Money.currencyCode("USD")).isNotEqualTo(Money.currencyCode("EUR"))
+                .isNotEqualTo(Money.NO_CURRENCY);
+    }
+
+    @Test
+    void rejectsMalformedCurrencies() {
+        assertThatThrownBy(() -> Money.currencyCode("US")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.currencyCode("U$D")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.currencyCode("")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.codeop.store.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codeop.store.dto.OrderResponse;
+import com.codeop.store.model.OrderStatus;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class OrderPageQueriesTests {
+
+    // Far enough in the past that no other test's orders fall inside [FROM, TO).
+    private static final Instant T0 = Instant.parse("2001-01-01T00:00:00Z");
+    private static final Instant FROM = T0.minusSeconds(60);
+    private static final Instant TO = T0.plusSeconds(60);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String alice = "page-" + UUID.randomUUID() + "@example.com";
+    private final String bob = "page-" + UUID.randomUUID() + "@example.com";
+    private final List<Long> orderIds = new ArrayList<>();
+
+    private long tiedNew;
+    private long tiedPaid;
+    private long tiedBob;
+    private long later;
+    private long atTo;
+    private long beforeFrom;
+    private long atFrom;
+
+    @BeforeEach
+    void insertOrders() {
+        // Three orders share one createdAt, so only the id tells them apart.
+        tiedNew = order(alice, OrderStatus.NEW, T0);
+        tiedPaid = order(alice, OrderStatus.PAID, T0);
+        tiedBob = order(bob, OrderStatus.NEW, T0);
+        later = order(alice, OrderStatus.CANCELLED, T0.plusSeconds(1));
+        atTo = order(bob, OrderStatus.NEW, TO);
+        beforeFrom = order(alice, OrderStatus.NEW, FROM.minusMillis(1));
+        atFrom = order(bob, OrderStatus.PAID, FROM);
+    }
+
+    @AfterEach
+    void deleteOrders() {
+        orderIds.forEach(id -> jdbcTemplate.update("DELETE FROM orders WHERE id = ?", id));
+    }
+
+    @Test
+    void cursorWalksTiedTimestampsWithoutSkippingOrRepeating() {
+        List<Long> seen = new ArrayList<>();
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+        while (true) {
+            List<OrderResponse> page = orderRepository.findPage(null, null, FROM, TO, afterCreatedAt, afterId, 2);
+            page.forEach(order -> seen.add(order.getId()));
+            if (page.size() < 2) {
+                break;
+            }
+            OrderResponse last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+
+        assertThat(seen).containsExactly(later, tiedBob, tiedPaid, tiedNew, atFrom);
+    }
+
+    @Test
+    void filtersByStatus() {
+        assertThat(ids(orderRepository.findPage(OrderStatus.PAID, null, FROM, TO, null, null, 10)))
+                .containsExactly(tiedPaid, atFrom);
+    }
+
+    @Test
+    void filtersByCustomerEmail() {
+        assertThat(ids(orderRepository.findPage(null, bob, null, null, null, null, 10)))
+                .containsExactly(atTo, tiedBob, atFrom);
+    }
+
+    @Test
+    void fromIsInclusiveAndToIsExclusive() {
+        assertThat(ids(orderRepository.findPage(null, null, FROM, TO, null, null, 10)))
+                .contains(atFrom).doesNotContain(beforeFrom, atTo);
+        assertThat(ids(orderRepository.findPage(null, alice, FROM, null, null, null, 10)))
+                .containsExactly(later, tiedPaid, tiedNew);
+        assertThat(ids(orderRepository.findPage(null, alice, null, T0, null, null, 10)))
+                .containsExactly(beforeFrom);
+    }
+
+    @Test
+    void combinesFilters() {
+        assertThat(ids(orderRepository.findPage(OrderStatus.NEW, alice, FROM, TO, null, null, 10)))
+                .containsExactly(tiedNew);
+    }
+
+    private long order(String email, OrderStatus status, Instant createdAt) {
+        Long id = jdbcTemplate.queryForObject("""
+                INSERT INTO orders (customer_name, customer_email, status, total_amount, currency, version,
+                    created_at, updated_at)
+                VALUES ('Page Test', ?, ?, 0, 'USD', 0, ?, ?)
+                RETURNING id
+                """, Long.class, email, status.name(), Timestamp.from(createdAt), Timestamp.from(createdAt));
+        orderIds.add(id);
+        return id;
+    }
+
+    private static List<Long> ids(List<OrderResponse> orders) {
+        return orders.stream().map(OrderResponse::getId).toList();
+    }
+}
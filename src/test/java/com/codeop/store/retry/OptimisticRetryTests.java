@@ -0,0 +1,111 @@
+package com.codeop.store.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codeop.store.model.Product;
+import com.codeop.store.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+@SpringBootTest
+class OptimisticRetryTests {
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        Product product = new Product();
+        product.setName("Original");
+        product.setPrice(new BigDecimal("1.00"));
+        product.setCurrency("USD");
+        product.setSku("RETRY-" + UUID.randomUUID());
+        product.setStockQuantity(10);
+        productId = productRepository.save(product).getId();
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        productRepository.deleteById(productId);
+    }
+
+    @Test
+    void replaysWorkFromAFreshReadAfterAConflict() {
+        String operation = "test.replay." + UUID.randomUUID();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String name = optimisticRetry.execute(operation, () -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                concurrentWrite();
+            }
+            product.setName(product.getName() + " edited");
+            return productRepository.save(product).getName();
+        });
+
+        assertThat(attempts).hasValue(2);
+        assertThat(name).isEqualTo("Concurrent edited");
+        assertThat(optimisticRetry.stats().get(operation)).isEqualTo(new RetryStats(2, 1, 1, 0));
+    }
+
+    @Test
+    void singleAttemptReportsConflictInsteadOfOverwriting() {
+        String operation = "test.once." + UUID.randomUUID();
+
+        assertThatThrownBy(() -> optimisticRetry.executeOnce(operation, () -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            concurrentWrite();
+            product.setName("Client value");
+            return productRepository.save(product);
+        }))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        assertThat(productRepository.findById(productId).orElseThrow().getName()).isEqualTo("Concurrent");
+        assertThat(optimisticRetry.stats().get(operation)).isEqualTo(new RetryStats(1, 1, 0, 1));
+    }
+
+    @Test
+    void stockMovesDoNotBumpTheProductVersion() {
+        long version = productRepository.findById(productId).orElseThrow().getVersion();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(productRepository.reserveStock(productId, 3, Instant.now())).isEqualTo(1);
+            assertThat(productRepository.releaseStock(productId, 1, Instant.now())).isEqualTo(1);
+        });
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertThat(product.getStockQuantity()).isEqualTo(8);
+        assertThat(product.getVersion()).isEqualTo(version);
+    }
+
+    // Runs on another thread so it commits on its own connection, outside the attempt's transaction.
+    private void concurrentWrite() {
+        CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                "UPDATE products SET name = 'Concurrent', version = version + 1 WHERE id = ?", productId)).join();
+    }
+}